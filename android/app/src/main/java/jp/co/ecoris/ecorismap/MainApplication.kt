@@ -10,6 +10,7 @@ import com.facebook.react.ReactHost
 import com.facebook.react.ReactNativeApplicationEntryPoint.loadReactNative
 import com.facebook.react.common.ReleaseLevel
 import com.facebook.react.defaults.DefaultNewArchitectureEntryPoint
+import com.rnmaps.maps.TileCacheCoordinator
 
 import expo.modules.ApplicationLifecycleDispatcher
 import expo.modules.ExpoReactHostFactory
@@ -23,6 +24,7 @@ class MainApplication : Application(), ReactApplication {
         PackageList(this).packages.apply {
           // Packages that cannot be autolinked yet can be added manually here, for example:
           // add(MyReactNativePackage())
+          add(TileArchivePackage())
         }
     )
   }
@@ -49,4 +51,15 @@ class MainApplication : Application(), ReactApplication {
     super.onConfigurationChanged(newConfig)
     ApplicationLifecycleDispatcher.onConfigurationChanged(this, newConfig)
   }
+
+  // 地図タイルのネイティブキャッシュをメモリ不足のレベルに合わせて減らす
+  override fun onTrimMemory(level: Int) {
+    super.onTrimMemory(level)
+    TileCacheCoordinator.getInstance().onTrimMemory(level)
+  }
+
+  override fun onLowMemory() {
+    super.onLowMemory()
+    TileCacheCoordinator.getInstance().onLowMemory()
+  }
 }
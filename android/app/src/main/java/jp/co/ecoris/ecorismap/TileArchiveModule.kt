@@ -0,0 +1,351 @@
+package jp.co.ecoris.ecorismap
+
+import PMTiles.PMTilesExtractor
+import PMTiles.TileFolderCompactor
+import PMTiles.TileMetrics
+import PMTiles.TileTrace
+import android.net.Uri
+import com.facebook.react.bridge.Arguments
+import com.rnmaps.maps.ElevationService
+import com.rnmaps.maps.LocalTileArchives
+import com.rnmaps.maps.TileTranscoder
+import com.rnmaps.maps.VectorTileQuery
+import com.facebook.react.bridge.Promise
+import com.facebook.react.bridge.ReactApplicationContext
+import com.facebook.react.bridge.ReactContextBaseJavaModule
+import com.facebook.react.bridge.ReactMethod
+import com.facebook.react.bridge.ReadableArray
+import com.facebook.react.bridge.ReadableMap
+import com.facebook.react.bridge.WritableArray
+import com.facebook.react.bridge.WritableMap
+import com.facebook.react.modules.core.DeviceEventManagerModule
+import java.io.File
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+
+// react-native-mapsのタイル処理（PMTilesパッケージ等）をJSから呼ぶためのモジュール
+class TileArchiveModule(reactContext: ReactApplicationContext) : ReactContextBaseJavaModule(reactContext) {
+
+  private val executor: ExecutorService = Executors.newSingleThreadExecutor()
+  // 地物検索は抜き出しやまとめの完了を待たせない
+  private val queryExecutor: ExecutorService = Executors.newSingleThreadExecutor()
+  // 標高は断面で数千点を引くので、地物検索とも分ける
+  private val elevationExecutor: ExecutorService = Executors.newSingleThreadExecutor()
+
+  override fun getName(): String = NAME
+
+  // リモートのPMTilesからbboxとズーム範囲のタイルを抜き出してローカルの.pmtilesを作る
+  @ReactMethod
+  fun extractPMTilesRegion(
+    jobId: String,
+    url: String,
+    outputUri: String,
+    bounds: ReadableMap,
+    minZoom: Int,
+    maxZoom: Int,
+    promise: Promise
+  ) {
+    executor.execute {
+      val output = toFile(outputUri)
+      try {
+        val count = PMTilesExtractor(url).extract(
+          output,
+          bounds.getDouble("minLon"),
+          bounds.getDouble("minLat"),
+          bounds.getDouble("maxLon"),
+          bounds.getDouble("maxLat"),
+          minZoom,
+          maxZoom
+        ) { done, total -> emitProgress(jobId, done, total) }
+        output.parentFile?.let { forgetFolder(it.path) }
+        promise.resolve(count.toDouble())
+      } catch (e: Exception) {
+        // 書きかけのアーカイブは残さない
+        output.delete()
+        promise.reject("E_EXTRACT_ERROR", e.message, e)
+      }
+    }
+  }
+
+  // z/x/yのタイルフォルダのうちbboxとズーム範囲のタイルを、フォルダ直下のtiles.pmtilesにまとめる（前のアーカイブと合わせる）。
+  // UrlTileとオフライン時のPMTileはそこから読む
+  @ReactMethod
+  fun compactTileFolder(
+    jobId: String,
+    folderUri: String,
+    bounds: ReadableMap,
+    minZoom: Int,
+    maxZoom: Int,
+    deleteSource: Boolean,
+    promise: Promise
+  ) {
+    executor.execute {
+      try {
+        val count = TileFolderCompactor(toFile(folderUri)).compact(
+          bounds.getDouble("minLon"),
+          bounds.getDouble("minLat"),
+          bounds.getDouble("maxLon"),
+          bounds.getDouble("maxLat"),
+          minZoom,
+          maxZoom,
+          deleteSource
+        ) { done, total -> emitProgress(jobId, done, total) }
+        forgetFolder(toFile(folderUri).path)
+        promise.resolve(count.toDouble())
+      } catch (e: Exception) {
+        promise.reject("E_COMPACT_ERROR", e.message, e)
+      }
+    }
+  }
+
+  // タイルフォルダを消したり入れ替えたりした後に呼ぶ。読み込み済みのベクタータイルとアーカイブを捨てる
+  @ReactMethod
+  fun forgetTileFolder(folderUri: String, promise: Promise) {
+    forgetFolder(toFile(folderUri).path)
+    promise.resolve(null)
+  }
+
+  // z/x/yのラスタタイルをフォルダのtileformat.jsonの形式（WebP）に書き換える（TileTranscoder）
+  @ReactMethod
+  fun transcodeTileFolder(jobId: String, folderUri: String, promise: Promise) {
+    executor.execute {
+      try {
+        val count = TileTranscoder.transcodeFolder(toFile(folderUri)) { done, total ->
+          emitProgress(jobId, done, total)
+        }
+        promise.resolve(count.toDouble())
+      } catch (e: Exception) {
+        promise.reject("E_TRANSCODE_ERROR", e.message, e)
+      }
+    }
+  }
+
+  // タイルフォルダのz/x/yのベクタータイルで、経緯度の位置にある地物の属性を返す（VectorTileQuery）
+  @ReactMethod
+  fun queryVectorTile(
+    folderUri: String,
+    zoom: Int,
+    x: Int,
+    y: Int,
+    longitude: Double,
+    latitude: Double,
+    tolerancePx: Double,
+    promise: Promise
+  ) {
+    queryExecutor.execute {
+      try {
+        val features = VectorTileQuery.query(toFile(folderUri).path, zoom, x, y, longitude, latitude, tolerancePx)
+        val result: WritableArray = Arguments.createArray()
+        for (properties in features) {
+          result.pushMap(toMap(properties))
+        }
+        promise.resolve(result)
+      } catch (e: Exception) {
+        promise.reject("E_QUERY_ERROR", e.message, e)
+      }
+    }
+  }
+
+  // 標高タイルから点の標高を返す（ElevationService）。offlineなら保存先フォルダのタイルだけを読む
+  @ReactMethod
+  fun getElevations(
+    demUrl: String,
+    folderUri: String,
+    maxZoom: Int,
+    offline: Boolean,
+    longitudes: ReadableArray,
+    latitudes: ReadableArray,
+    promise: Promise
+  ) {
+    elevationExecutor.execute {
+      try {
+        val result = ElevationService.query(
+          reactApplicationContext,
+          demUrl,
+          toFile(folderUri).path,
+          maxZoom,
+          offline,
+          toDoubleArray(longitudes),
+          toDoubleArray(latitudes)
+        )
+        val map = Arguments.createMap()
+        map.putArray("elevations", toArray(result.elevations))
+        map.putArray("zooms", toArray(result.zooms))
+        promise.resolve(map)
+      } catch (e: Exception) {
+        promise.reject("E_ELEVATION_ERROR", e.message, e)
+      }
+    }
+  }
+
+  // 線に沿ってintervalMetersごとの標高を返す（ElevationService）
+  @ReactMethod
+  fun getElevationProfile(
+    demUrl: String,
+    folderUri: String,
+    maxZoom: Int,
+    offline: Boolean,
+    longitudes: ReadableArray,
+    latitudes: ReadableArray,
+    intervalMeters: Double,
+    promise: Promise
+  ) {
+    elevationExecutor.execute {
+      try {
+        val profile = ElevationService.profile(
+          reactApplicationContext,
+          demUrl,
+          toFile(folderUri).path,
+          maxZoom,
+          offline,
+          toDoubleArray(longitudes),
+          toDoubleArray(latitudes),
+          intervalMeters
+        )
+        val map = Arguments.createMap()
+        map.putArray("distances", toArray(profile.distances))
+        map.putArray("longitudes", toArray(profile.longitudes))
+        map.putArray("latitudes", toArray(profile.latitudes))
+        map.putArray("elevations", toArray(profile.elevations))
+        map.putArray("zooms", toArray(profile.zooms))
+        promise.resolve(map)
+      } catch (e: Exception) {
+        promise.reject("E_ELEVATION_ERROR", e.message, e)
+      }
+    }
+  }
+
+  // タイルプロバイダーの工程ごとの処理時間とカウンタ（PMTiles.TileMetrics）のスナップショット
+  @ReactMethod
+  fun getTileMetrics(promise: Promise) {
+    promise.resolve(toMap(TileMetrics.snapshot()))
+  }
+
+  @ReactMethod
+  fun resetTileMetrics() {
+    TileMetrics.reset()
+  }
+
+  // intervalMsごとにlogcat（タグTileMetrics）へ出力する。0で停止
+  @ReactMethod
+  fun setTileMetricsLogging(intervalMs: Double) {
+    TileMetrics.startLogging(intervalMs.toLong())
+  }
+
+  // タイル要求の記録（PMTiles.TileTrace）を始める。benchmarks/native-tilesのreplayで再生する
+  @ReactMethod
+  fun startTileTrace(fileUri: String, maxMb: Double, promise: Promise) {
+    try {
+      TileTrace.start(toFile(fileUri), (maxMb * 1024 * 1024).toLong())
+      promise.resolve(null)
+    } catch (e: Exception) {
+      promise.reject("E_TRACE_ERROR", e.message, e)
+    }
+  }
+
+  // 記録を止めて、書き出した要求の数を返す
+  @ReactMethod
+  fun stopTileTrace(promise: Promise) {
+    promise.resolve(TileTrace.stop().toDouble())
+  }
+
+  // NativeEventEmitterの要件
+  @ReactMethod
+  fun addListener(eventName: String) {}
+
+  @ReactMethod
+  fun removeListeners(count: Int) {}
+
+  private fun forgetFolder(path: String) {
+    VectorTileQuery.forget(path)
+    // 地図に載っているプロバイダーにも新しいアーカイブを開かせる
+    LocalTileArchives.invalidate(path)
+  }
+
+  private fun emitProgress(jobId: String, done: Long, total: Long) {
+    val params = Arguments.createMap()
+    params.putString("jobId", jobId)
+    params.putDouble("done", done.toDouble())
+    params.putDouble("total", total.toDouble())
+    reactApplicationContext
+      .getJSModule(DeviceEventManagerModule.RCTDeviceEventEmitter::class.java)
+      .emit(PROGRESS_EVENT, params)
+  }
+
+  private fun toMap(snapshot: TileMetrics.Snapshot): WritableMap {
+    val stages = Arguments.createMap()
+    for ((stage, value) in snapshot.stages) {
+      val stageMap = Arguments.createMap()
+      stageMap.putDouble("count", value.count.toDouble())
+      stageMap.putDouble("avgMs", if (value.count > 0) value.sumMicros / 1000.0 / value.count else 0.0)
+      stageMap.putDouble("p50Ms", value.p50Micros / 1000.0)
+      stageMap.putDouble("p90Ms", value.p90Micros / 1000.0)
+      stageMap.putDouble("p99Ms", value.p99Micros / 1000.0)
+      stageMap.putDouble("maxMs", value.maxMicros / 1000.0)
+      stages.putMap(stage.name.lowercase(), stageMap)
+    }
+    val counters = Arguments.createMap()
+    for ((counter, value) in snapshot.counters) {
+      counters.putDouble(counter.name.lowercase(), value.toDouble())
+    }
+    val map = Arguments.createMap()
+    map.putMap("stages", stages)
+    map.putMap("counters", counters)
+    map.putDouble("inFlight", snapshot.inFlight.toDouble())
+    map.putDouble("uptimeMs", snapshot.uptimeMillis.toDouble())
+    return map
+  }
+
+  private fun toMap(properties: Map<String, Any?>): WritableMap {
+    val map = Arguments.createMap()
+    for ((key, value) in properties) {
+      when (value) {
+        null -> map.putNull(key)
+        is Boolean -> map.putBoolean(key, value)
+        is Number -> map.putDouble(key, value.toDouble())
+        else -> map.putString(key, value.toString())
+      }
+    }
+    return map
+  }
+
+  private fun toDoubleArray(array: ReadableArray): DoubleArray =
+    DoubleArray(array.size()) { array.getDouble(it) }
+
+  private fun toArray(values: DoubleArray): WritableArray {
+    val array = Arguments.createArray()
+    for (value in values) array.pushDouble(value)
+    return array
+  }
+
+  // 標高の取れなかった点（NaN）はnull
+  private fun toArray(values: FloatArray): WritableArray {
+    val array = Arguments.createArray()
+    for (value in values) {
+      if (value.isNaN()) array.pushNull() else array.pushDouble(value.toDouble())
+    }
+    return array
+  }
+
+  private fun toArray(values: IntArray): WritableArray {
+    val array = Arguments.createArray()
+    for (value in values) array.pushInt(value)
+    return array
+  }
+
+  private fun toFile(uri: String): File =
+    if (uri.startsWith("file://")) File(Uri.parse(uri).path!!) else File(uri)
+
+  override fun invalidate() {
+    executor.shutdownNow()
+    queryExecutor.shutdownNow()
+    elevationExecutor.shutdownNow()
+    ElevationService.clear()
+    super.invalidate()
+  }
+
+  companion object {
+    const val NAME = "TileArchive"
+    const val PROGRESS_EVENT = "TileArchiveProgress"
+  }
+}
@@ -0,0 +1,44 @@
+package PMTiles;
+
+import fixtures.Fixtures;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/** Gzip inflation of vector tiles (PMTiles tile compression 2) and of a leaf directory. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class DecompressBenchmark {
+
+  // Input size: features per layer of the tile; the directory gets four times as many entries
+  @Param({ "200", "2000" })
+  public int scale;
+
+  private byte[] gzippedTile;
+  private byte[] gzippedDirectory;
+
+  @Setup
+  public void setup() {
+    gzippedTile = Fixtures.gzip(Fixtures.vectorTile(scale));
+    gzippedDirectory = Fixtures.gzip(PMTilesUtils.serializeIndex(Fixtures.directoryEntries(scale * 4)));
+  }
+
+  @Benchmark
+  public ByteBuffer tile() throws IOException {
+    return Decompress.decompress(ByteBuffer.wrap(gzippedTile), 2);
+  }
+
+  @Benchmark
+  public ByteBuffer directory() throws IOException {
+    return Decompress.decompress(ByteBuffer.wrap(gzippedDirectory), 2);
+  }
+}
@@ -0,0 +1,85 @@
+package PMTiles;
+
+import fixtures.Fixtures;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/** Directory decoding and lookups done for every tile read from an archive. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PMTilesUtilsBenchmark {
+
+  private static final int LOOKUPS = 1024;
+
+  // Leaf directories hold a few thousand entries; root directories of small archives up to ~16k
+  @Param({ "4096", "16384" })
+  public int entries;
+
+  private byte[] serializedIndex;
+  private List<Entry> directory;
+  private long[] tileIds;
+  private int[][] zxy;
+
+  @Setup
+  public void setup() {
+    directory = Fixtures.directoryEntries(entries);
+    serializedIndex = PMTilesUtils.serializeIndex(directory);
+    Random random = new Random(Fixtures.SEED);
+    long first = directory.get(0).tileId;
+    long last = directory.get(directory.size() - 1).tileId;
+    tileIds = new long[LOOKUPS];
+    for (int i = 0; i < LOOKUPS; i++) {
+      tileIds[i] = first + (long) (random.nextDouble() * (last - first));
+    }
+    zxy = new int[LOOKUPS][];
+    for (int i = 0; i < LOOKUPS; i++) {
+      int z = 8 + random.nextInt(8);
+      zxy[i] = new int[] { z, random.nextInt(1 << z), random.nextInt(1 << z) };
+    }
+  }
+
+  @Benchmark
+  public List<Entry> deserializeIndex() {
+    return PMTilesUtils.deserializeIndex(ByteBuffer.wrap(serializedIndex));
+  }
+
+  // Varints only, without building Entry objects
+  @Benchmark
+  public long readVarints() {
+    BufferPosition p = new BufferPosition(ByteBuffer.wrap(serializedIndex), 0);
+    long sum = 0;
+    while (p.pos < serializedIndex.length) {
+      sum += PMTilesUtils.readVarint(p);
+    }
+    return sum;
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(LOOKUPS)
+  public void findTile(Blackhole blackhole) {
+    for (long tileId : tileIds) {
+      blackhole.consume(PMTilesUtils.findTile(directory, tileId));
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(LOOKUPS)
+  public void zxyToTileId(Blackhole blackhole) {
+    for (int[] tile : zxy) {
+      blackhole.consume(PMTilesUtils.zxyToTileId(tile[0], tile[1], tile[2]));
+    }
+  }
+}
@@ -0,0 +1,48 @@
+package com.rnmaps.maps;
+
+import fixtures.Fixtures;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/** The per-tile contour work of MapDEMTileProvider without drawing and PNG encoding. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ContourBenchmark {
+
+  // z15 draws a 10 m interval over the fixture's ~1000 m of relief, z12 a 100 m one
+  @Param({ "12", "15" })
+  public int zoom;
+
+  private static final int SIZE = 256;
+
+  private float[] buffer;
+  private ContourKernel.Window window;
+  private ContourKernel.Segments segments;
+
+  @Setup
+  public void setup() {
+    buffer = Fixtures.elevationWithHalo(SIZE, HillshadeKernel.HALO);
+    window = new ContourKernel.Window(0, 0, SIZE, SIZE);
+    segments = trace();
+  }
+
+  @Benchmark
+  public ContourKernel.Segments trace() {
+    return ContourKernel.trace(buffer, SIZE + 2 * HillshadeKernel.HALO, HillshadeKernel.HALO, window,
+      ContourKernel.interval(zoom));
+  }
+
+  @Benchmark
+  public ContourKernel.Labels placeLabels() {
+    return ContourKernel.placeLabels(segments, buffer, SIZE + 2 * HillshadeKernel.HALO, HillshadeKernel.HALO, window,
+      24, 96, 6);
+  }
+}
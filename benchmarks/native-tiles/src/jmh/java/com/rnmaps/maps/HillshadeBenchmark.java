@@ -0,0 +1,49 @@
+package com.rnmaps.maps;
+
+import fixtures.Fixtures;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/** The per-tile work of MapDEMTileProvider without bitmap decoding and PNG encoding. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class HillshadeBenchmark {
+
+  // GSI DEM tiles are 256px; 512px matches providers with doubleTileSize
+  @Param({ "256", "512" })
+  public int size;
+
+  private float[] buffer;
+  private int[] encoded;
+  private double metersPerPx;
+
+  @Setup
+  public void setup() {
+    buffer = Fixtures.elevationWithHalo(size, HillshadeKernel.HALO);
+    encoded = Fixtures.encodedElevationTile(size);
+    metersPerPx = HillshadeKernel.metersPerPixel(14, 6450, size);
+  }
+
+  @Benchmark
+  public int[] shade() {
+    return HillshadeKernel.shade(buffer, size, metersPerPx);
+  }
+
+  @Benchmark
+  public float[] decodeElevation() {
+    float[] elevation = new float[encoded.length];
+    for (int i = 0; i < encoded.length; i++) {
+      int p = encoded[i];
+      elevation[i] = HillshadeKernel.decodeElevation((p >> 16) & 0xff, (p >> 8) & 0xff, p & 0xff);
+    }
+    return elevation;
+  }
+}
@@ -0,0 +1,56 @@
+package com.rnmaps.maps;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Label placement of one tile, as done by MapPMTileProvider.drawLabels.
+ * Label boxes are random but seeded, roughly the size of a short label at text-size 16.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class LabelCollisionBenchmark {
+
+  // Same as MapPMTileProvider with tileSize 512
+  private static final int TILE_SIZE = 512;
+  private static final float BUFFER = 64;
+  private static final float CELL_SIZE = 64;
+
+  @Param({ "200", "2000" })
+  public int labels;
+
+  private float[] boxes;
+
+  @Setup
+  public void setup() {
+    Random random = new Random(38);
+    boxes = new float[labels * 4];
+    for (int i = 0; i < labels; i++) {
+      float x = random.nextFloat() * (TILE_SIZE + 2 * BUFFER) - BUFFER;
+      float y = random.nextFloat() * (TILE_SIZE + 2 * BUFFER) - BUFFER;
+      float halfWidth = 16 + random.nextFloat() * 48;
+      boxes[i * 4] = x - halfWidth;
+      boxes[i * 4 + 1] = y - 15;
+      boxes[i * 4 + 2] = x + halfWidth;
+      boxes[i * 4 + 3] = y + 4;
+    }
+  }
+
+  @Benchmark
+  public int place() {
+    LabelCollisionIndex index = LabelCollisionIndex.forTile(TILE_SIZE, BUFFER, CELL_SIZE);
+    for (int i = 0; i < labels; i++) {
+      index.place(boxes[i * 4], boxes[i * 4 + 1], boxes[i * 4 + 2], boxes[i * 4 + 3]);
+    }
+    return index.size();
+  }
+}
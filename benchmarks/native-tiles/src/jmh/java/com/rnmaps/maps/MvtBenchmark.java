@@ -0,0 +1,119 @@
+package com.rnmaps.maps;
+
+import com.google.protobuf.InvalidProtocolBufferException;
+import fixtures.Fixtures;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import vector_tile.VectorTile;
+
+/**
+ * Protobuf decoding and geometry decoding of one vector tile, as done by MapPMTileProvider.getVectorTile.
+ * Paths go to a sink that only counts vertices, so android.graphics.Path is not measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MvtBenchmark {
+
+  private static final class CountingSink implements MvtGeometry.PathSink {
+
+    int vertices;
+
+    @Override
+    public void moveTo(float x, float y) {
+      vertices++;
+    }
+
+    @Override
+    public void lineTo(float x, float y) {
+      vertices++;
+    }
+
+    @Override
+    public void close() {}
+  }
+
+  @Param({ "200", "2000" })
+  public int featuresPerLayer;
+
+  // Same as MapPMTileProvider with tileSize 512
+  private static final float TILE_SIZE = 512;
+  // Same as GEOMETRY_BUFFER and SIMPLIFY_TOLERANCE in MapPMTileProvider
+  private static final float BUFFER = 64;
+  private static final float TOLERANCE = 0.5f;
+
+  private byte[] pbf;
+  private VectorTile.Tile tile;
+
+  @Setup
+  public void setup() throws InvalidProtocolBufferException {
+    pbf = Fixtures.vectorTile(featuresPerLayer);
+    tile = VectorTile.Tile.parseFrom(pbf);
+  }
+
+  @Benchmark
+  public VectorTile.Tile parse() throws InvalidProtocolBufferException {
+    return VectorTile.Tile.parseFrom(pbf);
+  }
+
+  @Benchmark
+  public int decodeGeometry(Blackhole blackhole) {
+    CountingSink sink = new CountingSink();
+    for (VectorTile.Tile.Layer layer : tile.getLayersList()) {
+      float scale = TILE_SIZE / layer.getExtent();
+      for (VectorTile.Tile.Feature feature : layer.getFeaturesList()) {
+        if (feature.getType() == VectorTile.Tile.GeomType.LINESTRING) {
+          blackhole.consume(MvtGeometry.decodeLine(feature.getGeometryList(), scale, sink));
+        } else if (feature.getType() == VectorTile.Tile.GeomType.POLYGON) {
+          blackhole.consume(MvtGeometry.decodePolygon(feature.getGeometryList(), scale, sink));
+        } else if (feature.getType() == VectorTile.Tile.GeomType.POINT) {
+          blackhole.consume(MvtGeometry.decodePoints(feature.getGeometryList(), scale));
+        }
+      }
+    }
+    return sink.vertices;
+  }
+
+  // Same as decodeGeometry, through the clipping and simplification done before styling
+  @Benchmark
+  public int decodeGeometryClipped(Blackhole blackhole) {
+    CountingSink sink = new CountingSink();
+    for (VectorTile.Tile.Layer layer : tile.getLayersList()) {
+      float scale = TILE_SIZE / layer.getExtent();
+      for (VectorTile.Tile.Feature feature : layer.getFeaturesList()) {
+        boolean polygon = feature.getType() == VectorTile.Tile.GeomType.POLYGON;
+        MvtGeometry.ClippingSink clipping = new MvtGeometry.ClippingSink(
+          sink,
+          polygon,
+          -BUFFER,
+          -BUFFER,
+          TILE_SIZE + BUFFER,
+          TILE_SIZE + BUFFER,
+          TOLERANCE
+        );
+        if (feature.getType() == VectorTile.Tile.GeomType.LINESTRING) {
+          blackhole.consume(MvtGeometry.decodeLine(feature.getGeometryList(), scale, clipping));
+        } else if (polygon) {
+          blackhole.consume(MvtGeometry.decodePolygon(feature.getGeometryList(), scale, clipping));
+        }
+        clipping.finish();
+      }
+    }
+    return sink.vertices;
+  }
+
+  // Parse and decode together, the part of getVectorTile before styling
+  @Benchmark
+  public int parseAndDecode(Blackhole blackhole) throws InvalidProtocolBufferException {
+    tile = VectorTile.Tile.parseFrom(pbf);
+    return decodeGeometry(blackhole);
+  }
+}
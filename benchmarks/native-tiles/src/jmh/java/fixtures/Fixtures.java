@@ -0,0 +1,192 @@
+package fixtures;
+
+import PMTiles.Entry;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.GZIPOutputStream;
+import vector_tile.VectorTile;
+
+/**
+ * Deterministic fixtures for the benchmarks. Everything is generated from fixed seeds so runs on
+ * different machines measure the same input and no binary tiles have to be kept in the repository.
+ */
+public final class Fixtures {
+
+  public static final long SEED = 20261019L;
+
+  private Fixtures() {}
+
+  /**
+   * Directory entries like a clustered z0-z14 archive of a region: runs of consecutive tile IDs
+   * with occasional gaps and repeated (run-length) ocean tiles.
+   */
+  public static List<Entry> directoryEntries(int count) {
+    Random random = new Random(SEED);
+    List<Entry> entries = new ArrayList<>(count);
+    // PMTilesUtils.zxyToTileId(10, 900, 400); PMTilesUtils is package-private
+    long tileId = 1146629L;
+    long offset = 0;
+    for (int i = 0; i < count; i++) {
+      tileId += random.nextInt(16) == 0 ? 1 + random.nextInt(64) : 1;
+      int length = 200 + random.nextInt(60_000);
+      int runLength = random.nextInt(32) == 0 ? 1 + random.nextInt(8) : 1;
+      entries.add(new Entry(tileId, offset, length, runLength));
+      offset += length;
+      tileId += runLength - 1;
+    }
+    return entries;
+  }
+
+  /** A vector tile with a road, a contour and a building layer (extent 4096). */
+  public static byte[] vectorTile(int featuresPerLayer) {
+    Random random = new Random(SEED);
+    VectorTile.Tile.Builder tile = VectorTile.Tile.newBuilder();
+    tile.addLayers(layer("road", VectorTile.Tile.GeomType.LINESTRING, featuresPerLayer, 24, random));
+    tile.addLayers(layer("contour", VectorTile.Tile.GeomType.LINESTRING, featuresPerLayer, 96, random));
+    tile.addLayers(layer("building", VectorTile.Tile.GeomType.POLYGON, featuresPerLayer, 6, random));
+    return tile.build().toByteArray();
+  }
+
+  private static VectorTile.Tile.Layer layer(
+    String name,
+    VectorTile.Tile.GeomType type,
+    int features,
+    int vertices,
+    Random random
+  ) {
+    VectorTile.Tile.Layer.Builder layer = VectorTile.Tile.Layer.newBuilder()
+      .setVersion(2)
+      .setName(name)
+      .setExtent(4096)
+      .addKeys("class")
+      .addKeys("name");
+    for (int v = 0; v < 8; v++) {
+      layer.addValues(VectorTile.Tile.Value.newBuilder().setStringValue(name + "_" + v));
+    }
+    for (int f = 0; f < features; f++) {
+      VectorTile.Tile.Feature.Builder feature = VectorTile.Tile.Feature.newBuilder()
+        .setId(f)
+        .setType(type)
+        .addTags(0)
+        .addTags(random.nextInt(4))
+        .addTags(1)
+        .addTags(4 + random.nextInt(4));
+      feature.addAllGeometry(
+        type == VectorTile.Tile.GeomType.POLYGON ? ring(vertices, random) : line(vertices, random)
+      );
+      layer.addFeatures(feature);
+    }
+    return layer.build();
+  }
+
+  private static List<Integer> line(int vertices, Random random) {
+    List<Integer> geometry = new ArrayList<>();
+    int x = random.nextInt(4096);
+    int y = random.nextInt(4096);
+    geometry.add(command(1, 1));
+    geometry.add(zigzag(x));
+    geometry.add(zigzag(y));
+    geometry.add(command(2, vertices - 1));
+    for (int i = 1; i < vertices; i++) {
+      int dx = random.nextInt(129) - 64;
+      int dy = random.nextInt(129) - 64;
+      geometry.add(zigzag(dx));
+      geometry.add(zigzag(dy));
+    }
+    return geometry;
+  }
+
+  private static List<Integer> ring(int vertices, Random random) {
+    List<Integer> geometry = new ArrayList<>();
+    int cx = random.nextInt(4096);
+    int cy = random.nextInt(4096);
+    int radius = 8 + random.nextInt(40);
+    int lastX = 0;
+    int lastY = 0;
+    for (int i = 0; i < vertices; i++) {
+      double angle = 2 * Math.PI * i / vertices;
+      int x = cx + (int) Math.round(Math.cos(angle) * radius);
+      int y = cy + (int) Math.round(Math.sin(angle) * radius);
+      if (i == 0) {
+        geometry.add(command(1, 1));
+      } else if (i == 1) {
+        geometry.add(command(2, vertices - 1));
+      }
+      geometry.add(zigzag(x - lastX));
+      geometry.add(zigzag(y - lastY));
+      lastX = x;
+      lastY = y;
+    }
+    geometry.add(command(7, 1));
+    return geometry;
+  }
+
+  private static int command(int id, int count) {
+    return (id & 0x7) | (count << 3);
+  }
+
+  private static int zigzag(int value) {
+    return (value << 1) ^ (value >> 31);
+  }
+
+  public static byte[] gzip(byte[] data) {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+      gzip.write(data);
+    } catch (IOException e) {
+      throw new IllegalStateException(e);
+    }
+    return out.toByteArray();
+  }
+
+  /**
+   * Elevation in metres for one DEM tile plus halo, like MapDEMTileProvider.assembleWithHalo
+   * produces: ridges and valleys from a few octaves of sine waves, with a NoData hole.
+   */
+  public static float[] elevationWithHalo(int size, int halo) {
+    Random random = new Random(SEED);
+    int bufferSize = size + 2 * halo;
+    float[] buffer = new float[bufferSize * bufferSize];
+    double[] phases = new double[8];
+    for (int i = 0; i < phases.length; i++) {
+      phases[i] = random.nextDouble() * Math.PI * 2;
+    }
+    for (int y = 0; y < bufferSize; y++) {
+      for (int x = 0; x < bufferSize; x++) {
+        double z = 800;
+        for (int octave = 0; octave < 4; octave++) {
+          double frequency = (octave + 1) * 0.02;
+          double amplitude = 300.0 / (octave + 1);
+          z += amplitude * Math.sin(x * frequency + phases[octave * 2]) * Math.cos(y * frequency + phases[octave * 2 + 1]);
+        }
+        buffer[y * bufferSize + x] = (float) z;
+      }
+    }
+    // NoData area, e.g. the sea
+    for (int y = 0; y < size / 8; y++) {
+      for (int x = 0; x < size / 8; x++) {
+        buffer[(halo + y) * bufferSize + halo + x] = Float.NaN;
+      }
+    }
+    return buffer;
+  }
+
+  /** GSI/AIST encoded elevation tile (RGB packed in ints) for the same terrain, without the halo. */
+  public static int[] encodedElevationTile(int size) {
+    float[] elevation = elevationWithHalo(size, 0);
+    int[] pixels = new int[size * size];
+    for (int i = 0; i < pixels.length; i++) {
+      if (Float.isNaN(elevation[i])) {
+        pixels[i] = 0xff800000;
+        continue;
+      }
+      int x = Math.round(elevation[i] * 100);
+      if (x < 0) x += 1 << 24;
+      pixels[i] = 0xff000000 | x;
+    }
+    return pixels;
+  }
+}
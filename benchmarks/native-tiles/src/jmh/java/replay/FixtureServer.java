@@ -0,0 +1,164 @@
+package replay;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import fixtures.Fixtures;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import javax.imageio.ImageIO;
+
+/**
+ * Local HTTP stand-in for the tile servers a trace was recorded against. Serves deterministic
+ * fixture tiles at /raster/z/x/y.png, /dem/z/x/y.png (GSI encoded elevation) and /vector/z/x/y.pbf.
+ * A delay query parameter (microseconds) holds the response back, which is how the replay
+ * reproduces the network time recorded on the device.
+ *
+ * <p>Tiles are picked from a few variants generated up front, so serving costs no CPU in the
+ * measured JVM beyond the copy to the socket.
+ */
+final class FixtureServer implements AutoCloseable {
+
+  private static final int VARIANTS = 16;
+  private static final int TILE_SIZE = 256;
+
+  private final HttpServer server;
+  private final ExecutorService executor;
+  private final byte[][] raster = new byte[VARIANTS][];
+  private final byte[][] dem = new byte[VARIANTS][];
+  private final byte[][] vector = new byte[VARIANTS][];
+
+  FixtureServer() throws IOException {
+    Random random = new Random(Fixtures.SEED);
+    for (int i = 0; i < VARIANTS; i++) {
+      raster[i] = rasterTile(random);
+      dem[i] = elevationTile(i);
+      vector[i] = Fixtures.vectorTile(50 + i * 25);
+    }
+    server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 64);
+    executor = Executors.newCachedThreadPool(runnable -> {
+      Thread thread = new Thread(runnable, "FixtureServer");
+      thread.setDaemon(true);
+      return thread;
+    });
+    server.setExecutor(executor);
+    server.createContext("/raster/", exchange -> serve(exchange, raster, "image/png"));
+    server.createContext("/dem/", exchange -> serve(exchange, dem, "image/png"));
+    server.createContext("/vector/", exchange -> serve(exchange, vector, "application/x-protobuf"));
+    server.start();
+  }
+
+  String baseUrl() {
+    return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort();
+  }
+
+  /** The tile the server returns for a path like /raster/z/x/y.png, or null when out of range. */
+  byte[] tile(String path) {
+    String[] parts = path.split("/");
+    if (parts.length != 5) return null;
+    int zoom;
+    int x;
+    int y;
+    try {
+      zoom = Integer.parseInt(parts[2]);
+      x = Integer.parseInt(parts[3]);
+      int dot = parts[4].indexOf('.');
+      y = Integer.parseInt(dot >= 0 ? parts[4].substring(0, dot) : parts[4]);
+    } catch (NumberFormatException e) {
+      return null;
+    }
+    if (zoom < 0 || zoom > 30 || x < 0 || y < 0 || x >= (1L << zoom) || y >= (1L << zoom)) return null;
+    byte[][] variants = parts[1].equals("raster") ? raster : parts[1].equals("dem") ? dem : vector;
+    return variants[Math.floorMod(31 * (31 * zoom + x) + y, VARIANTS)];
+  }
+
+  private void serve(HttpExchange exchange, byte[][] variants, String contentType) throws IOException {
+    try {
+      long delayMicros = delay(exchange.getRequestURI().getQuery());
+      if (delayMicros > 0) {
+        TimeUnit.MICROSECONDS.sleep(delayMicros);
+      }
+      byte[] body = tile(exchange.getRequestURI().getPath());
+      if (body == null) {
+        exchange.sendResponseHeaders(404, -1);
+        return;
+      }
+      exchange.getResponseHeaders().set("Content-Type", contentType);
+      exchange.sendResponseHeaders(200, body.length);
+      try (OutputStream out = exchange.getResponseBody()) {
+        out.write(body);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      exchange.sendResponseHeaders(503, -1);
+    } finally {
+      exchange.close();
+    }
+  }
+
+  private static long delay(String query) {
+    if (query == null) return 0;
+    for (String param : query.split("&")) {
+      if (param.startsWith("delay=")) {
+        try {
+          return Long.parseLong(param.substring("delay=".length()));
+        } catch (NumberFormatException e) {
+          return 0;
+        }
+      }
+    }
+    return 0;
+  }
+
+  // Aerial-photo-like noise over a gradient, so PNG sizes are closer to real raster tiles than flat colour
+  private static byte[] rasterTile(Random random) {
+    BufferedImage image = new BufferedImage(TILE_SIZE, TILE_SIZE, BufferedImage.TYPE_INT_RGB);
+    int base = random.nextInt(0xffffff);
+    for (int y = 0; y < TILE_SIZE; y++) {
+      for (int x = 0; x < TILE_SIZE; x++) {
+        int r = (((base >> 16) & 0xff) + x / 4 + random.nextInt(24)) & 0xff;
+        int g = (((base >> 8) & 0xff) + y / 4 + random.nextInt(24)) & 0xff;
+        int b = ((base & 0xff) + random.nextInt(24)) & 0xff;
+        image.setRGB(x, y, (r << 16) | (g << 8) | b);
+      }
+    }
+    return png(image);
+  }
+
+  private static byte[] elevationTile(int variant) {
+    int[] pixels = Fixtures.encodedElevationTile(TILE_SIZE);
+    BufferedImage image = new BufferedImage(TILE_SIZE, TILE_SIZE, BufferedImage.TYPE_INT_RGB);
+    // Shift the same terrain per variant so neighbouring tiles differ
+    int offset = variant * 17;
+    for (int y = 0; y < TILE_SIZE; y++) {
+      for (int x = 0; x < TILE_SIZE; x++) {
+        image.setRGB(x, y, pixels[((y + offset) % TILE_SIZE) * TILE_SIZE + (x + offset) % TILE_SIZE] & 0xffffff);
+      }
+    }
+    return png(image);
+  }
+
+  static byte[] png(BufferedImage image) {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try {
+      ImageIO.write(image, "png", out);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return out.toByteArray();
+  }
+
+  @Override
+  public void close() {
+    server.stop(0);
+    executor.shutdownNow();
+  }
+}
@@ -0,0 +1,351 @@
+package replay;
+
+import PMTiles.TileMetrics;
+import PMTiles.TileTrace;
+import com.rnmaps.maps.HillshadeKernel;
+import com.rnmaps.maps.MvtGeometry;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.imageio.ImageIO;
+import vector_tile.VectorTile;
+
+/**
+ * JVM stand-ins for the Android tile providers, one per {@link TileTrace.Source}.
+ *
+ * <p>The real providers draw with android.graphics and some fetch through Google Maps or
+ * WorkManager, none of which run on a desktop JVM. Each stand-in repeats the Android-free part of
+ * its provider's getTile with the same shared classes (HillshadeKernel, MvtGeometry, vector_tile):
+ * shared memory cache, then the tile folder, then the network, writing back what was fetched.
+ * ImageIO takes the place of Bitmap. Stage timings and cache lookups go to TileMetrics as on the device.
+ */
+abstract class StandInProvider {
+
+  /** Byte-bounded LRU shared by all layers, like TileMemoryCache. */
+  static final class MemoryCache {
+
+    private final long maxBytes;
+    private long bytes;
+    private final LinkedHashMap<String, byte[]> entries = new LinkedHashMap<>(256, 0.75f, true);
+
+    MemoryCache(long maxBytes) {
+      this.maxBytes = maxBytes;
+    }
+
+    synchronized byte[] get(String key) {
+      return entries.get(key);
+    }
+
+    synchronized void put(String key, byte[] data) {
+      byte[] previous = entries.put(key, data);
+      bytes += data.length - (previous != null ? previous.length : 0);
+      Iterator<Map.Entry<String, byte[]>> it = entries.entrySet().iterator();
+      while (bytes > maxBytes && it.hasNext()) {
+        bytes -= it.next().getValue().length;
+        it.remove();
+      }
+    }
+  }
+
+  final TileTrace.Layer layer;
+  final String baseUrl;
+  final File cacheDir;
+  final MemoryCache memory;
+
+  StandInProvider(TileTrace.Layer layer, String baseUrl, File cacheDir, MemoryCache memory) {
+    this.layer = layer;
+    this.baseUrl = baseUrl;
+    this.cacheDir = cacheDir;
+    this.memory = memory;
+  }
+
+  static StandInProvider create(TileTrace.Layer layer, String serverUrl, File cacheDir, MemoryCache memory) {
+    switch (layer.source) {
+      case DEM:
+        return new Dem(layer, serverUrl + "/dem", cacheDir, memory);
+      case PMTILES:
+        return new Vector(layer, serverUrl + "/vector", cacheDir, memory);
+      default:
+        return new Raster(layer, serverUrl + "/raster", cacheDir, memory);
+    }
+  }
+
+  /**
+   * Returns the tile, or null like the provider would. networkMicros is the network time recorded
+   * for this request; the first fetch asks the fixture server to hold back that long.
+   */
+  final byte[] getTile(int x, int y, int zoom, long networkMicros) {
+    String key = layer.id + "/" + zoom + "/" + x + "/" + y;
+    byte[] cached = memory.get(key);
+    if (cached != null) return cached;
+    TileMetrics.beginTile();
+    try {
+      byte[] tile = render(x, y, zoom, new long[] { networkMicros });
+      if (tile != null) memory.put(key, tile);
+      return tile;
+    } finally {
+      TileMetrics.endTile();
+    }
+  }
+
+  /** Puts the fixture tile in the memory cache, for requests that hit it on the device. */
+  final void seedMemory(int x, int y, int zoom) {
+    byte[] tile = render(x, y, zoom, new long[] { 0 });
+    if (tile != null) memory.put(layer.id + "/" + zoom + "/" + x + "/" + y, tile);
+  }
+
+  /** Puts the source tile in the tile folder, for requests that hit it on the device. */
+  final void seedFolder(int x, int y, int zoom) {
+    sourceTile(x, y, zoom, new long[] { 0 });
+  }
+
+  abstract byte[] render(int x, int y, int zoom, long[] networkMicros);
+
+  abstract String extension();
+
+  // Tile folder, then the fixture server; what was fetched is written to the folder
+  final byte[] sourceTile(int x, int y, int zoom, long[] networkMicros) {
+    File file = new File(cacheDir, zoom + "/" + x + "/" + y + extension());
+    long readStart = TileMetrics.start();
+    byte[] data = null;
+    try {
+      if (file.isFile()) data = Files.readAllBytes(file.toPath());
+    } catch (IOException e) {
+      data = null;
+    }
+    TileMetrics.record(TileMetrics.Stage.DISK_READ, readStart);
+    TileMetrics.cacheLookup(data);
+    if (data != null) return data;
+
+    long fetchStart = TileMetrics.start();
+    data = fetch(zoom + "/" + x + "/" + y + extension(), networkMicros[0]);
+    networkMicros[0] = 0;
+    TileMetrics.record(TileMetrics.Stage.NETWORK, fetchStart);
+    if (data == null) return null;
+    TileMetrics.add(TileMetrics.Counter.BYTES_FETCHED, data.length);
+    try {
+      file.getParentFile().mkdirs();
+      Files.write(file.toPath(), data);
+    } catch (IOException e) {
+      // Same as the provider: the tile is still returned
+    }
+    return data;
+  }
+
+  private byte[] fetch(String path, long delayMicros) {
+    HttpURLConnection connection = null;
+    try {
+      connection = (HttpURLConnection) new URL(baseUrl + "/" + path + (delayMicros > 0 ? "?delay=" + delayMicros : ""))
+        .openConnection();
+      if (connection.getResponseCode() != 200) return null;
+      try (InputStream in = connection.getInputStream()) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[16 * 1024];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+          out.write(buffer, 0, read);
+        }
+        return out.toByteArray();
+      }
+    } catch (IOException e) {
+      return null;
+    } finally {
+      if (connection != null) connection.disconnect();
+    }
+  }
+
+  /** MapTileProvider in custom mode: the tile as stored, no drawing. */
+  static final class Raster extends StandInProvider {
+
+    Raster(TileTrace.Layer layer, String baseUrl, File cacheDir, MemoryCache memory) {
+      super(layer, baseUrl, cacheDir, memory);
+    }
+
+    @Override
+    byte[] render(int x, int y, int zoom, long[] networkMicros) {
+      return sourceTile(x, y, zoom, networkMicros);
+    }
+
+    @Override
+    String extension() {
+      return ".png";
+    }
+  }
+
+  /** MapDEMTileProvider: decode the tile and its 8 neighbours, shade with HillshadeKernel, encode PNG. */
+  static final class Dem extends StandInProvider {
+
+    private static final int HALO = HillshadeKernel.HALO;
+    private static final int ELEVATION_TILES = 128;
+
+    private final Map<String, float[]> elevationCache = new LinkedHashMap<String, float[]>(64, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, float[]> eldest) {
+        return size() > ELEVATION_TILES;
+      }
+    };
+    private volatile int demTileSize = 0;
+
+    Dem(TileTrace.Layer layer, String baseUrl, File cacheDir, MemoryCache memory) {
+      super(layer, baseUrl, cacheDir, memory);
+    }
+
+    @Override
+    String extension() {
+      return ".png";
+    }
+
+    @Override
+    byte[] render(int x, int y, int zoom, long[] networkMicros) {
+      if (loadElevation(x, y, zoom, networkMicros) == null) return null;
+      int size = demTileSize;
+      float[] buffer = new float[(size + 2 * HALO) * (size + 2 * HALO)];
+      Arrays.fill(buffer, Float.NaN);
+      int bufferSize = size + 2 * HALO;
+      int max = 1 << zoom;
+      for (int ty = -1; ty <= 1; ty++) {
+        int ny = y + ty;
+        if (ny < 0 || ny >= max) continue;
+        for (int tx = -1; tx <= 1; tx++) {
+          int nx = ((x + tx) % max + max) % max;
+          float[] tile = loadElevation(nx, ny, zoom, networkMicros);
+          if (tile == null || tile.length != size * size) continue;
+          int srcX0 = tx == -1 ? size - HALO : 0;
+          int srcX1 = tx == 1 ? HALO : size;
+          int srcY0 = ty == -1 ? size - HALO : 0;
+          int srcY1 = ty == 1 ? HALO : size;
+          int dstX = HALO + tx * size + srcX0;
+          int dstY = HALO + ty * size + srcY0;
+          for (int row = srcY0; row < srcY1; row++) {
+            System.arraycopy(tile, row * size + srcX0, buffer, (dstY + (row - srcY0)) * bufferSize + dstX, srcX1 - srcX0);
+          }
+        }
+      }
+      long shadingStart = TileMetrics.start();
+      int[] pixels = HillshadeKernel.shade(buffer, size, HillshadeKernel.metersPerPixel(zoom, y, size));
+      TileMetrics.record(TileMetrics.Stage.SHADING, shadingStart);
+
+      long encodeStart = TileMetrics.start();
+      BufferedImage image = new BufferedImage(size, size, BufferedImage.TYPE_INT_ARGB);
+      image.setRGB(0, 0, size, size, pixels, 0, size);
+      byte[] png = FixtureServer.png(image);
+      TileMetrics.record(TileMetrics.Stage.ENCODE, encodeStart);
+      return png;
+    }
+
+    private float[] loadElevation(int x, int y, int zoom, long[] networkMicros) {
+      String key = x + "," + y + "," + zoom;
+      synchronized (elevationCache) {
+        float[] cached = elevationCache.get(key);
+        if (cached != null) return cached;
+      }
+      byte[] data = sourceTile(x, y, zoom, networkMicros);
+      if (data == null) return null;
+
+      long decodeStart = TileMetrics.start();
+      BufferedImage image;
+      try {
+        image = ImageIO.read(new ByteArrayInputStream(data));
+      } catch (IOException e) {
+        image = null;
+      }
+      if (image == null) return null;
+      int width = image.getWidth();
+      int[] pixels = image.getRGB(0, 0, width, image.getHeight(), null, 0, width);
+      float[] elevation = new float[pixels.length];
+      for (int i = 0; i < pixels.length; i++) {
+        int p = pixels[i];
+        elevation[i] = HillshadeKernel.decodeElevation((p >> 16) & 0xff, (p >> 8) & 0xff, p & 0xff);
+      }
+      TileMetrics.record(TileMetrics.Stage.DECODE, decodeStart);
+
+      if (demTileSize == 0) demTileSize = width;
+      synchronized (elevationCache) {
+        elevationCache.put(key, elevation);
+      }
+      return elevation;
+    }
+  }
+
+  /**
+   * MapPMTileProvider for z/x/y vector tiles: parse the pbf and decode the geometry through the
+   * clipping done before styling. Styling and drawing use Canvas and are not reproduced, so the
+   * returned "tile" is the pbf itself.
+   */
+  static final class Vector extends StandInProvider {
+
+    // Same as MapPMTileProvider with tileSize 512
+    private static final float TILE_SIZE = 512;
+    private static final float BUFFER = 64;
+    private static final float TOLERANCE = 0.5f;
+
+    private static final class CountingSink implements MvtGeometry.PathSink {
+
+      int vertices;
+
+      @Override
+      public void moveTo(float x, float y) {
+        vertices++;
+      }
+
+      @Override
+      public void lineTo(float x, float y) {
+        vertices++;
+      }
+
+      @Override
+      public void close() {}
+    }
+
+    Vector(TileTrace.Layer layer, String baseUrl, File cacheDir, MemoryCache memory) {
+      super(layer, baseUrl, cacheDir, memory);
+    }
+
+    @Override
+    String extension() {
+      return ".pbf";
+    }
+
+    @Override
+    byte[] render(int x, int y, int zoom, long[] networkMicros) {
+      byte[] pbf = sourceTile(x, y, zoom, networkMicros);
+      if (pbf == null) return null;
+      long decodeStart = TileMetrics.start();
+      VectorTile.Tile tile;
+      try {
+        tile = VectorTile.Tile.parseFrom(pbf);
+      } catch (IOException e) {
+        return null;
+      }
+      CountingSink sink = new CountingSink();
+      for (VectorTile.Tile.Layer layer : tile.getLayersList()) {
+        float scale = TILE_SIZE / layer.getExtent();
+        for (VectorTile.Tile.Feature feature : layer.getFeaturesList()) {
+          boolean polygon = feature.getType() == VectorTile.Tile.GeomType.POLYGON;
+          MvtGeometry.ClippingSink clipping = new MvtGeometry.ClippingSink(
+            sink, polygon, -BUFFER, -BUFFER, TILE_SIZE + BUFFER, TILE_SIZE + BUFFER, TOLERANCE);
+          if (feature.getType() == VectorTile.Tile.GeomType.LINESTRING) {
+            MvtGeometry.decodeLine(feature.getGeometryList(), scale, clipping);
+          } else if (polygon) {
+            MvtGeometry.decodePolygon(feature.getGeometryList(), scale, clipping);
+          } else if (feature.getType() == VectorTile.Tile.GeomType.POINT) {
+            MvtGeometry.decodePoints(feature.getGeometryList(), scale);
+          }
+          clipping.finish();
+        }
+      }
+      TileMetrics.record(TileMetrics.Stage.DECODE, decodeStart);
+      return sink.vertices > 0 ? pbf : null;
+    }
+  }
+}
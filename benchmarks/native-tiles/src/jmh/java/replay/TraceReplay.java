@@ -0,0 +1,317 @@
+package replay;
+
+import PMTiles.TileMetrics;
+import PMTiles.TileTrace;
+import com.google.gson.GsonBuilder;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Replays tile traces recorded on a device (PMTiles.TileTrace) against the JVM stand-in providers
+ * and a local fixture server, and reports throughput, tail latency and allocation per trace.
+ *
+ * <pre>
+ *   TraceReplay [--threads=N] [--speed=F] [--network=recorded|none] [--warmup=N] [--memory-mb=N]
+ *               [--out=DIR] trace...
+ * </pre>
+ *
+ * --speed=1 keeps the recorded request times (the default), 2 replays twice as fast, and 0 sends
+ * every request at once to measure throughput. --threads defaults to the number of tile threads
+ * seen in the trace. With --network=recorded each request waits at the fixture server as long as
+ * its network stage took on the device. Latency is measured from when the request was due, so it
+ * includes queueing behind other tiles; service time is the getTile call alone.
+ */
+public final class TraceReplay {
+
+  private static final class Options {
+
+    int threads = 0;
+    double speed = 1;
+    boolean recordedNetwork = true;
+    int warmup = 1;
+    long memoryBytes = 32L * 1024 * 1024;
+    File out = new File("build/results/replay");
+  }
+
+  private static final class Run {
+
+    long[] latencyNanos;
+    long[] serviceNanos;
+    long allocatedBytes;
+    long wallNanos;
+    long gcCount;
+    long gcMillis;
+    int empty;
+    TileMetrics.Snapshot metrics;
+  }
+
+  private TraceReplay() {}
+
+  public static void main(String[] args) throws Exception {
+    Options options = new Options();
+    List<String> traces = new ArrayList<>();
+    for (String arg : args) {
+      if (arg.startsWith("--threads=")) {
+        options.threads = Integer.parseInt(arg.substring("--threads=".length()));
+      } else if (arg.startsWith("--speed=")) {
+        options.speed = Double.parseDouble(arg.substring("--speed=".length()));
+      } else if (arg.startsWith("--network=")) {
+        options.recordedNetwork = arg.substring("--network=".length()).equals("recorded");
+      } else if (arg.startsWith("--warmup=")) {
+        options.warmup = Integer.parseInt(arg.substring("--warmup=".length()));
+      } else if (arg.startsWith("--memory-mb=")) {
+        options.memoryBytes = Long.parseLong(arg.substring("--memory-mb=".length())) * 1024 * 1024;
+      } else if (arg.startsWith("--out=")) {
+        options.out = new File(arg.substring("--out=".length()));
+      } else if (arg.startsWith("--")) {
+        throw new IllegalArgumentException("Unknown option " + arg);
+      } else {
+        traces.add(arg);
+      }
+    }
+    if (traces.isEmpty()) {
+      System.err.println("Usage: TraceReplay [options] trace...  (see the class comment)");
+      System.exit(2);
+    }
+
+    try (FixtureServer server = new FixtureServer()) {
+      for (String path : traces) {
+        File file = new File(path);
+        TileTrace.Trace trace;
+        try (InputStream in = new FileInputStream(file)) {
+          trace = TileTrace.read(in);
+        }
+        if (trace.records.isEmpty()) {
+          System.out.println(file.getName() + ": no requests");
+          continue;
+        }
+        int threads = options.threads > 0 ? options.threads : threadCount(trace);
+        for (int i = 0; i < options.warmup; i++) {
+          replay(trace, server, threads, options);
+        }
+        Run run = replay(trace, server, threads, options);
+        Map<String, Object> report = report(file.getName(), trace, threads, options, run);
+        System.out.println(format(report));
+        System.out.println(TileMetrics.format(run.metrics));
+        options.out.mkdirs();
+        File json = new File(options.out, file.getName().replaceFirst("\\.[^.]*$", "") + ".json");
+        try (Writer writer = Files.newBufferedWriter(json.toPath(), StandardCharsets.UTF_8)) {
+          new GsonBuilder().setPrettyPrinting().create().toJson(report, writer);
+        }
+      }
+    }
+  }
+
+  private static int threadCount(TileTrace.Trace trace) {
+    Set<Integer> threads = new HashSet<>();
+    for (TileTrace.Record record : trace.records) {
+      threads.add(record.thread);
+    }
+    return Math.max(1, threads.size());
+  }
+
+  private static Run replay(TileTrace.Trace trace, FixtureServer server, int threads, Options options)
+    throws IOException, InterruptedException {
+    File cacheRoot = Files.createTempDirectory("tile-replay").toFile();
+    StandInProvider.MemoryCache memory = new StandInProvider.MemoryCache(options.memoryBytes);
+    Map<Integer, StandInProvider> providers = new HashMap<>();
+    for (TileTrace.Layer layer : trace.layers) {
+      providers.put(layer.id, StandInProvider.create(layer, server.baseUrl(), new File(cacheRoot, "layer" + layer.id), memory));
+    }
+    seed(trace, providers);
+
+    List<TileTrace.Record> records = trace.records;
+    int count = records.size();
+    Run run = new Run();
+    run.latencyNanos = new long[count];
+    run.serviceNanos = new long[count];
+    long[] allocated = new long[count];
+    boolean[] empty = new boolean[count];
+    com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    long[] gcBefore = gcTotals();
+
+    TileMetrics.reset();
+    ExecutorService pool = Executors.newFixedThreadPool(threads);
+    CountDownLatch done = new CountDownLatch(count);
+    long[] lastEnd = new long[1];
+    long startNanos = System.nanoTime();
+    long firstMicros = records.get(0).startMicros;
+    for (int i = 0; i < count; i++) {
+      TileTrace.Record record = records.get(i);
+      long due = options.speed > 0
+        ? startNanos + (long) ((record.startMicros - firstMicros) * 1000 / options.speed)
+        : startNanos;
+      long wait = due - System.nanoTime();
+      if (wait > 0) TimeUnit.NANOSECONDS.sleep(wait);
+      StandInProvider provider = providers.get(record.layer.id);
+      long network = options.recordedNetwork ? record.stage(TileMetrics.Stage.NETWORK) : 0;
+      final int index = i;
+      pool.execute(() -> {
+        long threadId = Thread.currentThread().getId();
+        long allocStart = threadBean.getThreadAllocatedBytes(threadId);
+        long serviceStart = System.nanoTime();
+        byte[] tile = provider.getTile(record.x, record.y, record.zoom, network);
+        long end = System.nanoTime();
+        allocated[index] = threadBean.getThreadAllocatedBytes(threadId) - allocStart;
+        run.serviceNanos[index] = end - serviceStart;
+        run.latencyNanos[index] = end - due;
+        empty[index] = tile == null;
+        synchronized (lastEnd) {
+          lastEnd[0] = Math.max(lastEnd[0], end);
+        }
+        done.countDown();
+      });
+    }
+    done.await();
+    pool.shutdown();
+
+    synchronized (lastEnd) {
+      run.wallNanos = lastEnd[0] - startNanos;
+    }
+    long[] gcAfter = gcTotals();
+    run.gcCount = gcAfter[0] - gcBefore[0];
+    run.gcMillis = gcAfter[1] - gcBefore[1];
+    for (int i = 0; i < count; i++) {
+      run.allocatedBytes += allocated[i];
+      if (empty[i]) run.empty++;
+    }
+    run.metrics = TileMetrics.snapshot();
+    deleteRecursively(cacheRoot);
+    return run;
+  }
+
+  // Reproduce the cache state the device started with: tiles that came from the shared memory cache
+  // before the trace asked for them, and source tiles that were already in the tile folder
+  private static void seed(TileTrace.Trace trace, Map<Integer, StandInProvider> providers) {
+    Set<String> seen = new HashSet<>();
+    for (TileTrace.Record record : trace.records) {
+      StandInProvider provider = providers.get(record.layer.id);
+      String key = record.layer.id + "/" + record.zoom + "/" + record.x + "/" + record.y;
+      boolean first = seen.add(key);
+      if (record.has(TileTrace.FLAG_MEMORY_HIT)) {
+        if (first) provider.seedMemory(record.x, record.y, record.zoom);
+      } else if (record.has(TileTrace.FLAG_CACHE_HIT) && !record.has(TileTrace.FLAG_CACHE_MISS)) {
+        provider.seedFolder(record.x, record.y, record.zoom);
+      }
+    }
+  }
+
+  private static long[] gcTotals() {
+    long count = 0;
+    long millis = 0;
+    for (GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans()) {
+      count += Math.max(0, bean.getCollectionCount());
+      millis += Math.max(0, bean.getCollectionTime());
+    }
+    return new long[] { count, millis };
+  }
+
+  private static Map<String, Object> report(String name, TileTrace.Trace trace, int threads, Options options, Run run) {
+    List<TileTrace.Record> records = trace.records;
+    int count = records.size();
+    long[] recorded = new long[count];
+    int memoryHits = 0;
+    int cacheHits = 0;
+    int cacheMisses = 0;
+    int recordedEmpty = 0;
+    for (int i = 0; i < count; i++) {
+      TileTrace.Record record = records.get(i);
+      recorded[i] = record.totalMicros * 1000;
+      if (record.has(TileTrace.FLAG_MEMORY_HIT)) memoryHits++;
+      if (record.has(TileTrace.FLAG_CACHE_HIT)) cacheHits++;
+      if (record.has(TileTrace.FLAG_CACHE_MISS)) cacheMisses++;
+      if (record.has(TileTrace.FLAG_EMPTY)) recordedEmpty++;
+    }
+    Map<String, Object> report = new LinkedHashMap<>();
+    report.put("trace", name);
+    report.put("requests", count);
+    report.put("layers", trace.layers.size());
+    report.put("recordedSeconds", (records.get(count - 1).startMicros - records.get(0).startMicros) / 1e6);
+    report.put("threads", threads);
+    report.put("speed", options.speed);
+    report.put("network", options.recordedNetwork ? "recorded" : "none");
+    report.put("wallSeconds", run.wallNanos / 1e9);
+    report.put("tilesPerSecond", count / Math.max(1e-9, run.wallNanos / 1e9));
+    report.put("latencyMs", percentiles(run.latencyNanos));
+    report.put("serviceMs", percentiles(run.serviceNanos));
+    report.put("recordedMs", percentiles(recorded));
+    report.put("allocatedMb", run.allocatedBytes / 1024.0 / 1024.0);
+    report.put("allocatedKbPerTile", run.allocatedBytes / 1024.0 / count);
+    report.put("gcCount", run.gcCount);
+    report.put("gcMs", run.gcMillis);
+    report.put("empty", run.empty);
+    Map<String, Object> outcomes = new LinkedHashMap<>();
+    outcomes.put("memoryHit", memoryHits);
+    outcomes.put("cacheHit", cacheHits);
+    outcomes.put("cacheMiss", cacheMisses);
+    outcomes.put("empty", recordedEmpty);
+    report.put("recordedOutcomes", outcomes);
+    return report;
+  }
+
+  private static Map<String, Double> percentiles(long[] nanos) {
+    long[] sorted = nanos.clone();
+    Arrays.sort(sorted);
+    Map<String, Double> result = new LinkedHashMap<>();
+    result.put("p50", percentile(sorted, 0.5));
+    result.put("p90", percentile(sorted, 0.9));
+    result.put("p99", percentile(sorted, 0.99));
+    result.put("p999", percentile(sorted, 0.999));
+    result.put("max", sorted[sorted.length - 1] / 1e6);
+    return result;
+  }
+
+  private static double percentile(long[] sorted, double q) {
+    int index = (int) Math.ceil(sorted.length * q) - 1;
+    return sorted[Math.max(0, Math.min(sorted.length - 1, index))] / 1e6;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static String format(Map<String, Object> report) {
+    StringBuilder builder = new StringBuilder();
+    builder.append(String.format(Locale.US, "%s: %d requests, %d layers, %.1fs recorded, %d threads, speed %s, network %s%n",
+      report.get("trace"), report.get("requests"), report.get("layers"), report.get("recordedSeconds"),
+      report.get("threads"), report.get("speed"), report.get("network")));
+    builder.append(String.format(Locale.US, "  throughput  %.1f tiles/s (wall %.2fs)%n",
+      report.get("tilesPerSecond"), report.get("wallSeconds")));
+    for (String key : new String[] { "latencyMs", "serviceMs", "recordedMs" }) {
+      Map<String, Double> p = (Map<String, Double>) report.get(key);
+      builder.append(String.format(Locale.US, "  %-10s  p50=%.2fms p90=%.2fms p99=%.2fms p99.9=%.2fms max=%.2fms%n",
+        key.substring(0, key.length() - 2), p.get("p50"), p.get("p90"), p.get("p99"), p.get("p999"), p.get("max")));
+    }
+    builder.append(String.format(Locale.US, "  allocation  %.1fMB (%.1fKB/tile), gc %d (%dms)%n",
+      report.get("allocatedMb"), report.get("allocatedKbPerTile"), report.get("gcCount"), report.get("gcMs")));
+    builder.append(String.format(Locale.US, "  outcomes    replay empty=%d, recorded %s",
+      report.get("empty"), report.get("recordedOutcomes")));
+    return builder.toString();
+  }
+
+  private static void deleteRecursively(File root) throws IOException {
+    try (Stream<Path> paths = Files.walk(root.toPath())) {
+      paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+    }
+  }
+}
@@ -568,6 +568,8 @@ jest.mock('react-native-maps', () => {
 jest.mock('react-native-gdalwarp', () => ({
   warp: jest.fn(() => Promise.resolve({ uri: 'file://test-warped.tif' })),
   warpedFileType: 'tif',
+  isImportVectorAvailable: jest.fn(() => false),
+  importVector: jest.fn(),
 }));
 
 // Mock react-native-scale-bar
@@ -1,6 +1,11 @@
 package com.gdalwarp;
 
+import android.app.ActivityManager;
+import android.content.Context;
+import android.content.pm.PackageInfo;
+import android.content.pm.PackageManager;
 import android.content.res.AssetManager;
+import android.os.SystemClock;
 import android.util.Log;
 import androidx.annotation.NonNull;
 import com.facebook.react.bridge.Arguments;
@@ -11,15 +16,31 @@ import com.facebook.react.bridge.ReactMethod;
 import com.facebook.react.bridge.WritableArray;
 import com.facebook.react.bridge.WritableMap;
 import com.facebook.react.module.annotations.ReactModule;
+import com.facebook.react.modules.core.DeviceEventManagerModule;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.Vector;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.gdal.gdal.Dataset;
 import org.gdal.gdal.Driver;
+import org.gdal.gdal.ProgressCallback;
 import org.gdal.gdal.WarpOptions;
 import org.gdal.gdal.gdal;
 import org.gdal.gdalconst.gdalconstConstants;
@@ -29,58 +50,120 @@ public class GdalwarpModule extends ReactContextBaseJavaModule {
 
   public static final String NAME = "Gdalwarp";
   private static final String E_CONVERT_ERROR = "E_CONVERT_ERROR";
+  private static final String E_CONVERT_CANCELLED = "E_CONVERT_CANCELLED";
   private static final String TAG = "Gdalwarp";
+  private static final String PROGRESS_EVENT = "GdalwarpProgress";
+  private static final String TILE_PROGRESS_EVENT = "GdalwarpTileProgress";
+  private static final String IMPORT_PROGRESS_EVENT = "GdalwarpImportProgress";
+  // ページサイズが取れないときの見積もり（A3相当、300DPI）
+  private static final long DEFAULT_PAGE_BYTES = 5000L * 3500L * 4 * 2;
 
-  private void copyAssets(ReactApplicationContext reactContext) {
-    try {
-      AssetManager assetManager = reactContext.getAssets();
-      String[] files = assetManager.list("proj");
-      File projDir = new File(reactContext.getFilesDir(), "proj");
-      if (!projDir.exists()) {
-        projDir.mkdirs();
-      }
-      for (String filename : files) {
-        Log.d(TAG, "PdfToImageModule: copy_proj_files: filename: " + filename);
-        InputStream is = assetManager.open("proj/" + filename);
-        OutputStream os = new FileOutputStream(new File(projDir, filename));
-        byte[] buffer = new byte[1024];
-        int length;
-        while ((length = is.read(buffer)) > 0) {
-          os.write(buffer, 0, length);
-        }
-        is.close();
-        os.close();
-      }
-      gdal.SetConfigOption("PROJ_LIB", projDir.getAbsolutePath());
-      Log.d(TAG, "PdfToImageModule: copy_proj_files: PROJ_LIB: " + projDir.getAbsolutePath());
-      files = assetManager.list("gdal");
-      File gdalDir = new File(reactContext.getFilesDir(), "gdal");
-      if (!gdalDir.exists()) {
-        gdalDir.mkdirs();
-      }
-      for (String filename : files) {
-        Log.d(TAG, "PdfToImageModule: copy_proj_files: filename: " + filename);
-        InputStream is = assetManager.open("gdal/" + filename);
-        OutputStream os = new FileOutputStream(new File(gdalDir, filename));
-        byte[] buffer = new byte[1024];
-        int length;
-        while ((length = is.read(buffer)) > 0) {
-          os.write(buffer, 0, length);
+  private final ExecutorService convertExecutor = Executors.newSingleThreadExecutor();
+  private final Set<String> cancelledUris = ConcurrentHashMap.newKeySet();
+  // 待機中・実行中のconvert/importVectorのURIと件数。終わったジョブへのcancelが残らないよう、
+  // cancelledUrisの追加・削除と一緒にjobLockで守る
+  private final Map<String, Integer> activeJobs = new HashMap<>();
+  private final Object jobLock = new Object();
+
+  // 展開済みのproj/gdalデータの版。アプリを更新するとlastUpdateTimeが変わるので展開し直す
+  private static final String DATA_VERSION_FILE = "gdal_data.version";
+  private static final String[] DATA_DIRS = { "proj", "gdal" };
+  private static final int COPY_CHUNK_SIZE = 256 * 1024;
+
+  private volatile boolean dataReady = false;
+
+  public GdalwarpModule(ReactApplicationContext reactContext) {
+    super(reactContext);
+  }
+
+  // 初回の変換時にproj.dbやgdalのcsvをfilesDirへ展開し、PROJ_LIB/GDAL_DATAを設定する
+  private synchronized void ensureGdalData() throws IOException {
+    if (dataReady) {
+      return;
+    }
+    long start = SystemClock.elapsedRealtime();
+    ReactApplicationContext context = getReactApplicationContext();
+    File filesDir = context.getFilesDir();
+    File versionFile = new File(filesDir, DATA_VERSION_FILE);
+    String version = getDataVersion(context);
+    boolean copied = false;
+
+    if (!version.equals(readVersion(versionFile)) || !dataDirsExist(filesDir)) {
+      versionFile.delete();
+      AssetManager assetManager = context.getAssets();
+      for (String dirName : DATA_DIRS) {
+        copyAssetDir(assetManager, dirName, new File(filesDir, dirName));
+      }
+      // 全部コピーできてから書くので、途中で落ちても次回やり直される
+      try (FileOutputStream os = new FileOutputStream(versionFile)) {
+        os.write(version.getBytes(StandardCharsets.UTF_8));
+      }
+      copied = true;
+    }
+
+    gdal.SetConfigOption("PROJ_LIB", new File(filesDir, "proj").getAbsolutePath());
+    gdal.SetConfigOption("GDAL_DATA", new File(filesDir, "gdal").getAbsolutePath());
+    dataReady = true;
+    Log.i(
+      TAG,
+      "ensureGdalData: " + (copied ? "extracted" : "up to date") + " in " + (SystemClock.elapsedRealtime() - start) + "ms"
+    );
+  }
+
+  private void copyAssetDir(AssetManager assetManager, String dirName, File targetDir) throws IOException {
+    String[] files = assetManager.list(dirName);
+    if (!targetDir.exists()) {
+      targetDir.mkdirs();
+    }
+    if (files == null) {
+      return;
+    }
+    for (String filename : files) {
+      try (
+        InputStream is = assetManager.open(dirName + "/" + filename);
+        ReadableByteChannel in = Channels.newChannel(is);
+        FileOutputStream os = new FileOutputStream(new File(targetDir, filename));
+        FileChannel out = os.getChannel()
+      ) {
+        // proj.dbのような大きなファイルもチャネル間で直接転送する
+        long position = 0;
+        long transferred;
+        while ((transferred = out.transferFrom(in, position, COPY_CHUNK_SIZE)) > 0) {
+          position += transferred;
         }
-        is.close();
-        os.close();
       }
-      gdal.SetConfigOption("GDAL_DATA", gdalDir.getAbsolutePath());
-      Log.d(TAG, "PdfToImageModule: copy_proj_files: GDAL_DATA: " + gdalDir.getAbsolutePath());
+    }
+  }
+
+  private static String getDataVersion(ReactApplicationContext context) {
+    try {
+      PackageInfo info = context.getPackageManager().getPackageInfo(context.getPackageName(), 0);
+      return info.versionName + ":" + info.lastUpdateTime;
+    } catch (PackageManager.NameNotFoundException e) {
+      return "unknown";
+    }
+  }
+
+  private static String readVersion(File versionFile) {
+    if (!versionFile.isFile()) {
+      return null;
+    }
+    try (FileInputStream is = new FileInputStream(versionFile)) {
+      byte[] buffer = new byte[(int) versionFile.length()];
+      int length = is.read(buffer);
+      return length < 0 ? null : new String(buffer, 0, length, StandardCharsets.UTF_8);
     } catch (IOException e) {
-      Log.e(TAG, "PdfToImageModule: copy_proj_files: error", e);
-      e.printStackTrace();
+      return null;
     }
   }
 
-  public GdalwarpModule(ReactApplicationContext reactContext) {
-    super(reactContext);
-    this.copyAssets(reactContext);
+  private static boolean dataDirsExist(File filesDir) {
+    for (String dirName : DATA_DIRS) {
+      if (!new File(filesDir, dirName).isDirectory()) {
+        return false;
+      }
+    }
+    return true;
   }
 
   @Override
@@ -112,7 +195,13 @@ public class GdalwarpModule extends ReactContextBaseJavaModule {
     return fileMap;
   }
 
-  private WritableMap convertPDF2PNG(String pdfUriString, String outputFilePath) {
+  private WritableMap convertPDF2PNG(
+    String pdfUriString,
+    String outputFilePath,
+    boolean cog,
+    int warpThreads,
+    ProgressCallback callback
+  ) {
     Dataset hDataset = gdal.Open(pdfUriString, gdalconstConstants.GA_ReadOnly);
     if (hDataset == null) {
       return null;
@@ -121,13 +210,36 @@ public class GdalwarpModule extends ReactContextBaseJavaModule {
     Vector<String> options = new Vector<>();
     options.add("-t_srs");
     options.add("epsg:3857");
-    options.add("-of");
-    options.add("PNG");
     options.add("-r");
     options.add("lanczos");
+    if (cog) {
+      // タイル化・内部オーバービュー付きのGeoTIFF。地図側（MapCOGTileProvider）がその場でタイルを切り出す
+      options.add("-of");
+      options.add("COG");
+      options.add("-dstalpha");
+      options.add("-co");
+      options.add("COMPRESS=DEFLATE");
+      options.add("-co");
+      options.add("BLOCKSIZE=512");
+      options.add("-co");
+      options.add("OVERVIEWS=IGNORE_EXISTING");
+      options.add("-co");
+      options.add("OVERVIEW_RESAMPLING=AVERAGE");
+      options.add("-co");
+      options.add("BIGTIFF=IF_SAFER");
+      options.add("-co");
+      options.add("NUM_THREADS=" + warpThreads);
+    } else {
+      options.add("-of");
+      options.add("PNG");
+    }
+    // ページ内でもワープを並列化する
+    options.add("-multi");
+    options.add("-wo");
+    options.add("NUM_THREADS=" + warpThreads);
 
     WarpOptions warpOptions = new WarpOptions(options);
-    Dataset outputDataset = gdal.Warp(outputFilePath, new Dataset[] { hDataset }, warpOptions);
+    Dataset outputDataset = gdal.Warp(outputFilePath, new Dataset[] { hDataset }, warpOptions, callback);
     hDataset.delete();
     if (outputDataset == null) {
       return null;
@@ -139,7 +251,30 @@ public class GdalwarpModule extends ReactContextBaseJavaModule {
     return fileMap;
   }
 
-  private void convertMultiPDF2PNG(String pdfUriString, Promise promise) {
+  // 1ページ分のラスターサイズ（300DPI、RGBA）からワープ時のメモリ量を見積もる。入力と出力で2面分
+  private long estimatePageBytes(String pageUriString) {
+    Dataset hDataset = gdal.Open(pageUriString, gdalconstConstants.GA_ReadOnly);
+    if (hDataset == null) {
+      return DEFAULT_PAGE_BYTES;
+    }
+    long bytes = (long) hDataset.getRasterXSize() * hDataset.getRasterYSize() * 4 * 2;
+    hDataset.delete();
+    return Math.max(bytes, 1);
+  }
+
+  // 空きメモリの半分に収まる範囲で同時に処理するページ数を決める
+  private int getPageConcurrency(long pageBytes, int pageCount) {
+    ActivityManager activityManager = (ActivityManager) getReactApplicationContext()
+      .getSystemService(Context.ACTIVITY_SERVICE);
+    ActivityManager.MemoryInfo memoryInfo = new ActivityManager.MemoryInfo();
+    activityManager.getMemoryInfo(memoryInfo);
+    long byMemory = memoryInfo.lowMemory ? 1 : (memoryInfo.availMem / 2) / pageBytes;
+    int cores = Runtime.getRuntime().availableProcessors();
+    return (int) Math.max(1, Math.min(Math.min(byMemory, cores), pageCount));
+  }
+
+  private void convertMultiPDF2PNG(String pdfUriString, boolean cog, Promise promise) {
+    ExecutorService pagePool = null;
     try {
       gdal.SetConfigOption("GDAL_PDF_DPI", "300");
       gdal.AllRegister();
@@ -154,28 +289,77 @@ public class GdalwarpModule extends ReactContextBaseJavaModule {
       int subdatasetsCount = papszMetadata.size() / 2;
       hDataset.delete();
       ////////////////////
+      String extension = cog ? ".tif" : ".png";
+      List<String> pageUris = new ArrayList<>();
+      List<String> outputFilePaths = new ArrayList<>();
+      if (subdatasetsCount == 0) {
+        pageUris.add(pdfUriString);
+        outputFilePaths.add(pdfUriString.replace(".pdf", extension));
+      } else {
+        for (int i = 1; i <= subdatasetsCount; i++) {
+          pageUris.add("PDF:" + i + ":" + pdfUriString);
+          outputFilePaths.add(pdfUriString.replace(".pdf", "_" + i + extension));
+        }
+      }
+
+      int pageCount = pageUris.size();
+      int concurrency = getPageConcurrency(estimatePageBytes(pageUris.get(0)), pageCount);
+      int warpThreads = Math.max(1, Runtime.getRuntime().availableProcessors() / concurrency);
+      Log.d(TAG, "convertMultiPDF2PNG: pages: " + pageCount + " concurrency: " + concurrency + " threads: " + warpThreads);
+
+      AtomicInteger completedPages = new AtomicInteger(0);
+      pagePool = Executors.newFixedThreadPool(concurrency);
+      List<Future<WritableMap>> futures = new ArrayList<>();
+      for (int i = 0; i < pageCount; i++) {
+        final int page = i + 1;
+        final String pageUri = pageUris.get(i);
+        final String outputFilePath = outputFilePaths.get(i);
+        futures.add(
+          pagePool.submit(() -> {
+            if (isCancelled(pdfUriString)) return null;
+            ProgressCallback callback = new ProgressCallback() {
+              private double lastEmitted = 0;
+
+              @Override
+              public int run(double dfComplete, String pszMessage) {
+                // イベントが多すぎないよう1%刻みで通知する
+                if (dfComplete - lastEmitted >= 0.01) {
+                  lastEmitted = dfComplete;
+                  emitProgress(pdfUriString, page, pageCount, completedPages.get(), dfComplete);
+                }
+                // 0を返すとGDALが処理を中断する
+                return isCancelled(pdfUriString) ? 0 : 1;
+              }
+            };
+            WritableMap fileMap = convertPDF2PNG(pageUri, outputFilePath, cog, warpThreads, callback);
+            emitProgress(pdfUriString, page, pageCount, completedPages.incrementAndGet(), 1);
+            return fileMap;
+          })
+        );
+      }
+
+      // ページ順を保って結果を集める
       WritableMap result = Arguments.createMap();
       WritableArray outputFiles = Arguments.createArray();
-      if (subdatasetsCount == 0) {
-        String outputFilePath = pdfUriString.replace(".pdf", ".png");
-        WritableMap fileMap = convertPDF2PNG(pdfUriString, outputFilePath);
+      for (Future<WritableMap> future : futures) {
+        WritableMap fileMap = future.get();
         if (fileMap != null) {
           outputFiles.pushMap(fileMap);
         }
-      } else {
-        for (int i = 1; i <= subdatasetsCount; i++) {
-          String outputFilePath = pdfUriString.replace(".pdf", "_" + i + ".png");
-          WritableMap fileMap = convertPDF2PNG("PDF:" + i + ":" + pdfUriString, outputFilePath);
-          if (fileMap != null) {
-            outputFiles.pushMap(fileMap);
-          }
-        }
+      }
+      if (isCancelled(pdfUriString)) {
+        promise.reject(E_CONVERT_CANCELLED, "Conversion cancelled.");
+        return;
       }
 
       result.putArray("outputFiles", outputFiles);
       promise.resolve(result);
     } catch (Exception e) {
       promise.reject("E_CONVERT_ERROR", e.toString());
+    } finally {
+      if (pagePool != null) {
+        pagePool.shutdown();
+      }
     }
   }
 
@@ -212,20 +396,221 @@ public class GdalwarpModule extends ReactContextBaseJavaModule {
     }
   }
 
+  // 変換はJSスレッドを塞がないよう専用のスレッドで順に実行する
   @ReactMethod
-  public void convert(String pdfUriString, Promise promise) {
-    String extension = pdfUriString.substring(pdfUriString.lastIndexOf(".") + 1);
-    // Log.d(TAG, "convert: extension: " + extension);
-    // Log.d(TAG, "convert: pdfUriString: " + pdfUriString);
-    if (extension.equals("pdf")) {
-      this.convertMultiPDF2PNG(pdfUriString, promise);
-    } else if (extension.equals("xml")) {
-      this.createGeoPDF(pdfUriString, promise);
-    } else {
-      promise.reject("E_CONVERT_ERROR", "Unsupported file format.");
+  public void convert(String pdfUriString, String format, Promise promise) {
+    beginJob(pdfUriString);
+    convertExecutor.execute(() -> {
+      try {
+        try {
+          ensureGdalData();
+        } catch (IOException e) {
+          Log.e(TAG, "convert: ensureGdalData: error", e);
+          promise.reject(E_CONVERT_ERROR, "Unable to prepare GDAL data: " + e.getMessage());
+          return;
+        }
+        String extension = pdfUriString.substring(pdfUriString.lastIndexOf(".") + 1);
+        // Log.d(TAG, "convert: extension: " + extension);
+        // Log.d(TAG, "convert: pdfUriString: " + pdfUriString);
+        if (extension.equals("pdf")) {
+          this.convertMultiPDF2PNG(pdfUriString, "COG".equals(format), promise);
+        } else if (extension.equals("xml")) {
+          this.createGeoPDF(pdfUriString, promise);
+        } else {
+          promise.reject("E_CONVERT_ERROR", "Unsupported file format.");
+        }
+      } finally {
+        endJob(pdfUriString);
+      }
+    });
+  }
+
+  // ワープ済みの画像からminZoom〜maxZoomのタイルをtileFolderのz/x/yに書き出す。戻り値は書き出したタイル数
+  // formatは"png"・"webp"（qualityは0〜100）・"webp_lossless"
+  @ReactMethod
+  public void generateTiles(
+    String imagePath,
+    String tileFolderUri,
+    double tileSize,
+    double minZoom,
+    double maxZoom,
+    String format,
+    double quality,
+    Promise promise
+  ) {
+    convertExecutor.execute(() -> {
+      // convertより先に呼ばれてもドライバとデータが揃うようにする
+      try {
+        ensureGdalData();
+      } catch (IOException e) {
+        Log.e(TAG, "generateTiles: ensureGdalData: error", e);
+        promise.reject(E_CONVERT_ERROR, "Unable to prepare GDAL data: " + e.getMessage());
+        return;
+      }
+      gdal.AllRegister();
+      Dataset dataset = gdal.Open(imagePath, gdalconstConstants.GA_ReadOnly);
+      if (dataset == null) {
+        promise.reject(E_CONVERT_ERROR, "Unable to open input file.");
+        return;
+      }
+      try {
+        long start = System.currentTimeMillis();
+        File tileFolder = new File(tileFolderUri.replace("file://", ""));
+        int count = new TilePyramidWriter(
+          dataset,
+          tileFolder,
+          (int) tileSize,
+          (int) minZoom,
+          (int) maxZoom,
+          format,
+          (int) quality,
+          (zoom, zoomDone, zoomTotal, done, total) -> {
+            // ズームの完了時と16枚ごとに通知する
+            if (zoomDone == zoomTotal || done % 16 == 0) {
+              emitTileProgress(imagePath, zoom, zoomDone, zoomTotal, done, total);
+            }
+          }
+        )
+          .write();
+        Log.d(TAG, "generateTiles: " + count + " tiles in " + (System.currentTimeMillis() - start) + "ms");
+        promise.resolve(count);
+      } catch (Exception e) {
+        Log.e(TAG, "generateTiles: error", e);
+        promise.reject(E_CONVERT_ERROR, e.toString());
+      } finally {
+        dataset.delete();
+      }
+    });
+  }
+
+  // ベクターファイルをOGRで読み、EPSG:4326にしたフィーチャーをdatabaseUriのSQLiteに書き出す。
+  // JSにはフィーチャーを渡さず、進捗と集計（レイヤ・ジオメトリタイプごとの件数とフィールド）だけを返す
+  @ReactMethod
+  public void importVector(String sourcePath, String databaseUri, Promise promise) {
+    beginJob(sourcePath);
+    convertExecutor.execute(() -> {
+      try {
+        ensureGdalData();
+        long start = System.currentTimeMillis();
+        VectorImporter importer = new VectorImporter(
+          sourcePath,
+          new File(databaseUri.replace("file://", "")),
+          (layer, layerName, done, total) -> emitImportProgress(sourcePath, layer, layerName, done, total),
+          () -> isCancelled(sourcePath)
+        );
+        Long count = importer.write();
+        if (count == null) {
+          promise.reject(E_CONVERT_CANCELLED, "Import cancelled.");
+          return;
+        }
+        Log.d(TAG, "importVector: " + count + " features in " + (System.currentTimeMillis() - start) + "ms");
+
+        WritableArray groups = Arguments.createArray();
+        for (VectorImporter.Group group : importer.getGroups()) {
+          WritableMap groupMap = Arguments.createMap();
+          groupMap.putInt("layer", group.layer);
+          groupMap.putString("layerName", group.layerName);
+          groupMap.putString("geometryType", group.geometryType);
+          groupMap.putDouble("count", group.count);
+          WritableArray fields = Arguments.createArray();
+          for (String field : group.fields) {
+            fields.pushString(field);
+          }
+          groupMap.putArray("fields", fields);
+          groups.pushMap(groupMap);
+        }
+        WritableMap result = Arguments.createMap();
+        result.putArray("groups", groups);
+        result.putDouble("imported", count);
+        result.putDouble("skipped", importer.getSkipped());
+        promise.resolve(result);
+      } catch (Exception e) {
+        Log.e(TAG, "importVector: error", e);
+        promise.reject(E_CONVERT_ERROR, e.toString());
+      } finally {
+        endJob(sourcePath);
+      }
+    });
+  }
+
+  // 実行中・待機中の変換を中断する。未着手のページは処理せず、実行中のワープはGDALに中断させる。
+  // 待機中・実行中のジョブが無いURIは記録しない（次の同じURIの変換が中断されないように）
+  @ReactMethod
+  public void cancel(String pdfUriString) {
+    synchronized (jobLock) {
+      if (activeJobs.containsKey(pdfUriString)) {
+        cancelledUris.add(pdfUriString);
+      }
+    }
+  }
+
+  private void beginJob(String uri) {
+    synchronized (jobLock) {
+      activeJobs.merge(uri, 1, Integer::sum);
+    }
+  }
+
+  // 同じURIのジョブが残っていなければ中断の印も消す
+  private void endJob(String uri) {
+    synchronized (jobLock) {
+      Integer count = activeJobs.get(uri);
+      if (count == null || count <= 1) {
+        activeJobs.remove(uri);
+        cancelledUris.remove(uri);
+      } else {
+        activeJobs.put(uri, count - 1);
+      }
     }
   }
 
+  // NativeEventEmitterの要件
+  @ReactMethod
+  public void addListener(String eventName) {}
+
+  @ReactMethod
+  public void removeListeners(double count) {}
+
+  private void emitTileProgress(String uri, int zoom, int zoomDone, int zoomTotal, int done, int total) {
+    WritableMap params = Arguments.createMap();
+    params.putString("uri", uri);
+    params.putInt("zoom", zoom);
+    params.putInt("zoomDone", zoomDone);
+    params.putInt("zoomTotal", zoomTotal);
+    params.putInt("done", done);
+    params.putInt("total", total);
+    getReactApplicationContext()
+      .getJSModule(DeviceEventManagerModule.RCTDeviceEventEmitter.class)
+      .emit(TILE_PROGRESS_EVENT, params);
+  }
+
+  private void emitImportProgress(String uri, int layer, String layerName, long done, long total) {
+    WritableMap params = Arguments.createMap();
+    params.putString("uri", uri);
+    params.putInt("layer", layer);
+    params.putString("layerName", layerName);
+    params.putDouble("done", done);
+    params.putDouble("total", total);
+    getReactApplicationContext()
+      .getJSModule(DeviceEventManagerModule.RCTDeviceEventEmitter.class)
+      .emit(IMPORT_PROGRESS_EVENT, params);
+  }
+
+  private boolean isCancelled(String pdfUriString) {
+    return cancelledUris.contains(pdfUriString);
+  }
+
+  private void emitProgress(String uri, int page, int pageCount, int completedPages, double pageProgress) {
+    WritableMap params = Arguments.createMap();
+    params.putString("uri", uri);
+    params.putInt("page", page);
+    params.putInt("pageCount", pageCount);
+    params.putInt("completedPages", completedPages);
+    params.putDouble("pageProgress", pageProgress);
+    getReactApplicationContext()
+      .getJSModule(DeviceEventManagerModule.RCTDeviceEventEmitter.class)
+      .emit(PROGRESS_EVENT, params);
+  }
+
   private WritableMap createCoordinateMap(double x, double y) {
     WritableMap map = Arguments.createMap();
     map.putDouble("x", x);
@@ -0,0 +1,312 @@
+package com.gdalwarp;
+
+import android.graphics.Bitmap;
+import android.os.Build;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import org.gdal.gdal.Dataset;
+import org.gdal.gdal.gdal;
+import org.gdal.gdalconst.gdalconstConstants;
+
+/**
+ * EPSG:3857にワープ済みのラスターから、タイル（z/x/y、拡張子なしのPNGかWebP）を1パスで切り出す。
+ * 最大ズームはタイル1行分ずつブロック読みしてリサンプルし、それより下のズームは
+ * 上のズームのタイルを2x2で縮小してメモリ上で組み立てる。元画像を読むのは1回だけ。
+ */
+class TilePyramidWriter {
+
+  interface ProgressListener {
+    // zoomの書き出し済みタイル数と、全ズームの合計
+    void onProgress(int zoom, int zoomDone, int zoomTotal, int done, int total);
+  }
+
+  private static final double EARTH_CIRCUMFERENCE = 40075016.686;
+  private static final double ORIGIN_OFFSET = 20037508.342789244;
+  // エンコード待ちで保持するタイルの上限（メモリ量の上限になる）
+  private static final int MAX_PENDING_TILES = 32;
+
+  private final Dataset dataset;
+  private final File tileFolder;
+  private final int tileSize;
+  private final int minZoom;
+  private final int maxZoom;
+  private final ProgressListener listener;
+  // "webp"（非可逆）か"webp_lossless"。それ以外はPNG
+  private final String format;
+  private final int quality;
+
+  private final int[] left;
+  private final int[] right;
+  private final int[] top;
+  private final int[] bottom;
+  private final int[] zoomDone;
+  private int done;
+  private int total;
+
+  // ズームごとの組み立て中の親タイル行（x -> ARGB）
+  private final List<Map<Integer, int[]>> parentRows = new ArrayList<>();
+
+  private ExecutorService encoder;
+  private Semaphore pending;
+  private final List<Future<?>> writes = new ArrayList<>();
+
+  TilePyramidWriter(
+    Dataset dataset,
+    File tileFolder,
+    int tileSize,
+    int minZoom,
+    int maxZoom,
+    String format,
+    int quality,
+    ProgressListener listener
+  ) {
+    this.dataset = dataset;
+    this.tileFolder = tileFolder;
+    this.tileSize = tileSize;
+    this.minZoom = minZoom;
+    this.maxZoom = maxZoom;
+    this.listener = listener;
+    this.format = format;
+    this.quality = Math.max(0, Math.min(100, quality));
+    this.left = new int[maxZoom + 1];
+    this.right = new int[maxZoom + 1];
+    this.top = new int[maxZoom + 1];
+    this.bottom = new int[maxZoom + 1];
+    this.zoomDone = new int[maxZoom + 1];
+  }
+
+  /** 全ズームのタイルを書き出し、書き出したタイル数を返す */
+  int write() throws IOException {
+    double[] gt = new double[6];
+    dataset.GetGeoTransform(gt);
+    int width = dataset.getRasterXSize();
+    int height = dataset.getRasterYSize();
+    double minX = gt[0];
+    double maxY = gt[3];
+    double maxX = gt[0] + gt[1] * width;
+    double minY = gt[3] + gt[5] * height;
+
+    total = 0;
+    for (int z = minZoom; z <= maxZoom; z++) {
+      // PDF.tsのcalculateTileと同じ範囲。下のズームは上のズームの親タイルの範囲になる
+      double n = Math.pow(2, z);
+      left[z] = (int) Math.floor(((minX + ORIGIN_OFFSET) / EARTH_CIRCUMFERENCE) * n);
+      right[z] = (int) Math.floor(((maxX + ORIGIN_OFFSET) / EARTH_CIRCUMFERENCE) * n);
+      top[z] = (int) Math.floor(((ORIGIN_OFFSET - maxY) / EARTH_CIRCUMFERENCE) * n);
+      bottom[z] = (int) Math.floor(((ORIGIN_OFFSET - minY) / EARTH_CIRCUMFERENCE) * n);
+      total += (right[z] - left[z] + 1) * (bottom[z] - top[z] + 1);
+      parentRows.add(new HashMap<>());
+    }
+
+    int cores = Runtime.getRuntime().availableProcessors();
+    encoder = Executors.newFixedThreadPool(Math.max(1, cores - 1));
+    pending = new Semaphore(MAX_PENDING_TILES);
+    String resampling = gdal.GetConfigOption("GDAL_RASTERIO_RESAMPLING");
+    gdal.SetConfigOption("GDAL_RASTERIO_RESAMPLING", "BILINEAR");
+    try {
+      double tileMeters = EARTH_CIRCUMFERENCE / Math.pow(2, maxZoom);
+      for (int y = top[maxZoom]; y <= bottom[maxZoom]; y++) {
+        int[][] row = readTileRow(gt, width, height, tileMeters, y);
+        for (int x = left[maxZoom]; x <= right[maxZoom]; x++) {
+          addTile(maxZoom, x, y, row[x - left[maxZoom]]);
+        }
+        flushParentRow(maxZoom, y);
+      }
+      for (Future<?> write : writes) {
+        write.get();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted", e);
+    } catch (ExecutionException e) {
+      throw new IOException(e.getCause());
+    } finally {
+      gdal.SetConfigOption("GDAL_RASTERIO_RESAMPLING", resampling);
+      encoder.shutdown();
+    }
+    return done;
+  }
+
+  // 最大ズームのタイル1行分を元画像から読み、タイルごとのARGBに分ける。範囲外は透明
+  private int[][] readTileRow(double[] gt, int width, int height, double tileMeters, int tileY) {
+    int tiles = right[maxZoom] - left[maxZoom] + 1;
+    int canvasWidth = tiles * tileSize;
+    // 行の左上を元画像のピクセル座標で表し、出力ピクセルあたりの元ピクセル数を求める
+    double rowLeft = left[maxZoom] * tileMeters - ORIGIN_OFFSET;
+    double rowTop = ORIGIN_OFFSET - tileY * tileMeters;
+    double srcLeft = (rowLeft - gt[0]) / gt[1];
+    double srcTop = (rowTop - gt[3]) / gt[5];
+    double scaleX = tileMeters / gt[1] / tileSize;
+    double scaleY = tileMeters / -gt[5] / tileSize;
+
+    int sx0 = (int) Math.max(0, Math.floor(srcLeft));
+    int sy0 = (int) Math.max(0, Math.floor(srcTop));
+    int sx1 = (int) Math.min(width, Math.ceil(srcLeft + canvasWidth * scaleX));
+    int sy1 = (int) Math.min(height, Math.ceil(srcTop + tileSize * scaleY));
+    int dx0 = (int) Math.round((sx0 - srcLeft) / scaleX);
+    int dy0 = (int) Math.round((sy0 - srcTop) / scaleY);
+    int dx1 = (int) Math.min(canvasWidth, Math.round((sx1 - srcLeft) / scaleX));
+    int dy1 = (int) Math.min(tileSize, Math.round((sy1 - srcTop) / scaleY));
+
+    int[][] row = new int[tiles][tileSize * tileSize];
+    int bufWidth = dx1 - dx0;
+    int bufHeight = dy1 - dy0;
+    if (sx1 <= sx0 || sy1 <= sy0 || bufWidth <= 0 || bufHeight <= 0) {
+      return row;
+    }
+
+    int bands = Math.min(4, dataset.getRasterCount());
+    int[] bandList = new int[bands];
+    for (int b = 0; b < bands; b++) {
+      bandList[b] = b + 1;
+    }
+    byte[] buffer = new byte[bufWidth * bufHeight * bands];
+    dataset.ReadRaster(
+      sx0,
+      sy0,
+      sx1 - sx0,
+      sy1 - sy0,
+      bufWidth,
+      bufHeight,
+      gdalconstConstants.GDT_Byte,
+      buffer,
+      bandList,
+      bands,
+      bufWidth * bands,
+      1
+    );
+
+    for (int by = 0; by < bufHeight; by++) {
+      int py = dy0 + by;
+      for (int bx = 0; bx < bufWidth; bx++) {
+        int px = dx0 + bx;
+        int i = (by * bufWidth + bx) * bands;
+        int r = buffer[i] & 0xff;
+        int g = bands >= 3 ? buffer[i + 1] & 0xff : r;
+        int b = bands >= 3 ? buffer[i + 2] & 0xff : r;
+        int a = bands == 4 ? buffer[i + 3] & 0xff : bands == 2 ? buffer[i + 1] & 0xff : 0xff;
+        row[px / tileSize][py * tileSize + px % tileSize] = (a << 24) | (r << 16) | (g << 8) | b;
+      }
+    }
+    return row;
+  }
+
+  private void addTile(int z, int x, int y, int[] pixels) throws InterruptedException {
+    writeTile(z, x, y, pixels);
+    if (z > minZoom) {
+      int[] parent = parentRows.get(z - 1 - minZoom).get(x >> 1);
+      if (parent == null) {
+        parent = new int[tileSize * tileSize];
+        parentRows.get(z - 1 - minZoom).put(x >> 1, parent);
+      }
+      downsampleInto(pixels, parent, (x & 1) * tileSize / 2, (y & 1) * tileSize / 2);
+    }
+  }
+
+  // 子タイルの行が親タイルの下半分（奇数行）か範囲の最終行なら、その親タイル行は完成している
+  private void flushParentRow(int z, int y) throws InterruptedException {
+    if (z == minZoom || ((y & 1) == 0 && y != bottom[z])) return;
+    int parentZ = z - 1;
+    int parentY = y >> 1;
+    Map<Integer, int[]> row = parentRows.get(parentZ - minZoom);
+    for (int x = left[parentZ]; x <= right[parentZ]; x++) {
+      int[] pixels = row.remove(x);
+      addTile(parentZ, x, parentY, pixels != null ? pixels : new int[tileSize * tileSize]);
+    }
+    flushParentRow(parentZ, parentY);
+  }
+
+  // 2x2の平均（アルファで重み付け）で縮小して親タイルの4分の1に書き込む
+  private void downsampleInto(int[] child, int[] parent, int offsetX, int offsetY) {
+    int half = tileSize / 2;
+    for (int y = 0; y < half; y++) {
+      for (int x = 0; x < half; x++) {
+        int i = (y * 2) * tileSize + x * 2;
+        int[] samples = { child[i], child[i + 1], child[i + tileSize], child[i + tileSize + 1] };
+        int a = 0;
+        int r = 0;
+        int g = 0;
+        int b = 0;
+        for (int c : samples) {
+          int ca = c >>> 24;
+          a += ca;
+          r += ((c >> 16) & 0xff) * ca;
+          g += ((c >> 8) & 0xff) * ca;
+          b += (c & 0xff) * ca;
+        }
+        int color = a == 0 ? 0 : ((a / 4) << 24) | ((r / a) << 16) | ((g / a) << 8) | (b / a);
+        parent[(offsetY + y) * tileSize + offsetX + x] = color;
+      }
+    }
+  }
+
+  private void writeTile(int z, int x, int y, int[] pixels) throws InterruptedException {
+    pending.acquire();
+    writes.add(
+      encoder.submit(() -> {
+        try {
+          File folder = new File(tileFolder, z + "/" + x);
+          if (!folder.isDirectory() && !folder.mkdirs()) {
+            throw new IOException("Unable to create " + folder);
+          }
+          Bitmap bitmap = Bitmap.createBitmap(pixels, tileSize, tileSize, Bitmap.Config.ARGB_8888);
+          try (FileOutputStream out = new FileOutputStream(new File(folder, String.valueOf(y)))) {
+            compress(bitmap, pixels, out);
+          } finally {
+            bitmap.recycle();
+          }
+          onTileWritten(z);
+          return null;
+        } finally {
+          pending.release();
+        }
+      })
+    );
+  }
+
+  // 全面透明や単色のタイル（範囲外の余白など）はPNGの方が小さいのでWebPにしない
+  @SuppressWarnings("deprecation")
+  private void compress(Bitmap bitmap, int[] pixels, FileOutputStream out) {
+    boolean lossless = "webp_lossless".equals(format);
+    if ((!"webp".equals(format) && !lossless) || isUniform(pixels)) {
+      bitmap.compress(Bitmap.CompressFormat.PNG, 100, out);
+      return;
+    }
+    Bitmap.CompressFormat webp;
+    if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.R) {
+      webp = lossless ? Bitmap.CompressFormat.WEBP_LOSSLESS : Bitmap.CompressFormat.WEBP_LOSSY;
+    } else {
+      // API 29は品質100なら可逆。API 28以前は最高品質の非可逆になる
+      webp = Bitmap.CompressFormat.WEBP;
+    }
+    bitmap.compress(webp, lossless ? 100 : quality, out);
+  }
+
+  // 透明な画素は色を問わず同じとみなす
+  private static boolean isUniform(int[] pixels) {
+    int first = (pixels[0] >>> 24) == 0 ? 0 : pixels[0];
+    for (int pixel : pixels) {
+      if (((pixel >>> 24) == 0 ? 0 : pixel) != first) return false;
+    }
+    return true;
+  }
+
+  private synchronized void onTileWritten(int z) {
+    done++;
+    zoomDone[z]++;
+    int zoomTotal = (right[z] - left[z] + 1) * (bottom[z] - top[z] + 1);
+    if (listener != null) {
+      listener.onProgress(z, zoomDone[z], zoomTotal, done, total);
+    }
+  }
+}
@@ -0,0 +1,242 @@
+package com.gdalwarp;
+
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.gdal.ogr.DataSource;
+import org.gdal.ogr.Feature;
+import org.gdal.ogr.FeatureDefn;
+import org.gdal.ogr.Geometry;
+import org.gdal.ogr.Layer;
+import org.gdal.ogr.ogr;
+import org.gdal.osr.CoordinateTransformation;
+import org.gdal.osr.SpatialReference;
+import org.gdal.osr.osr;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * OGRで開けるベクターファイル（Shapefile、GeoPackage、GeoJSON、KMLなど）のフィーチャーを1件ずつ読み、
+ * EPSG:4326に変換して作業用のSQLiteに書き出す。ファイル全体をメモリに載せないので大きなファイルでも取り込める。
+ * 書き出し先のfeaturesテーブルはJS側（useGeoFile）がページ単位で読んでレコードにする。
+ */
+class VectorImporter {
+
+  interface ProgressListener {
+    // 書き出し済みのフィーチャー数と全体数（件数が分からない形式では0）
+    void onProgress(int layer, String layerName, long done, long total);
+  }
+
+  interface CancelChecker {
+    boolean isCancelled();
+  }
+
+  /** レイヤとジオメトリタイプの組ごとの集計。JS側ではこの単位で1レイヤになる */
+  static class Group {
+    final int layer;
+    final String layerName;
+    final String geometryType;
+    final List<String> fields;
+    long count;
+
+    Group(int layer, String layerName, String geometryType, List<String> fields) {
+      this.layer = layer;
+      this.layerName = layerName;
+      this.geometryType = geometryType;
+      this.fields = fields;
+    }
+  }
+
+  // 1トランザクションで書く件数
+  private static final int BATCH_SIZE = 2000;
+
+  private final String sourcePath;
+  private final File databaseFile;
+  private final ProgressListener listener;
+  private final CancelChecker cancelChecker;
+
+  private final List<Group> groups = new ArrayList<>();
+  private long skipped;
+
+  VectorImporter(String sourcePath, File databaseFile, ProgressListener listener, CancelChecker cancelChecker) {
+    this.sourcePath = sourcePath;
+    this.databaseFile = databaseFile;
+    this.listener = listener;
+    this.cancelChecker = cancelChecker;
+  }
+
+  List<Group> getGroups() {
+    return groups;
+  }
+
+  /** ジオメトリが無い、または点・線・面以外で取り込めなかったフィーチャー数 */
+  long getSkipped() {
+    return skipped;
+  }
+
+  /** 全レイヤを書き出し、書き出したフィーチャー数を返す。中断された場合はnull */
+  Long write() throws IOException {
+    ogr.RegisterAll();
+    DataSource dataSource = ogr.Open(sourcePath, 0);
+    if (dataSource == null) {
+      throw new IOException("Unable to open " + sourcePath);
+    }
+
+    File parent = databaseFile.getParentFile();
+    if (parent != null && !parent.isDirectory() && !parent.mkdirs()) {
+      throw new IOException("Unable to create " + parent);
+    }
+    SQLiteDatabase.deleteDatabase(databaseFile);
+    SQLiteDatabase db = SQLiteDatabase.openOrCreateDatabase(databaseFile, null);
+    SpatialReference wgs84 = new SpatialReference();
+    try {
+      db.execSQL(
+        "CREATE TABLE features (id INTEGER PRIMARY KEY, layer INTEGER NOT NULL, geometry_type TEXT NOT NULL, " +
+        "geometry TEXT NOT NULL, properties TEXT NOT NULL)"
+      );
+      wgs84.ImportFromEPSG(4326);
+      // GDAL3以降はEPSG:4326が緯度経度順になるので、GeoJSONと同じ経度緯度順にする
+      wgs84.SetAxisMappingStrategy(osr.OAMS_TRADITIONAL_GIS_ORDER);
+
+      long written = 0;
+      try (
+        SQLiteStatement insert = db.compileStatement(
+          "INSERT INTO features (layer, geometry_type, geometry, properties) VALUES (?, ?, ?, ?)"
+        )
+      ) {
+        for (int i = 0; i < dataSource.GetLayerCount(); i++) {
+          Long count = writeLayer(db, insert, dataSource.GetLayer(i), i, wgs84);
+          if (count == null) return null;
+          written += count;
+        }
+      }
+      // JS側はレイヤとジオメトリタイプごとにid順で読む
+      db.execSQL("CREATE INDEX features_group ON features (layer, geometry_type, id)");
+      return written;
+    } finally {
+      db.close();
+      wgs84.delete();
+      dataSource.delete();
+    }
+  }
+
+  private Long writeLayer(SQLiteDatabase db, SQLiteStatement insert, Layer layer, int layerIndex, SpatialReference wgs84)
+    throws IOException {
+    String layerName = layer.GetName();
+    FeatureDefn defn = layer.GetLayerDefn();
+    List<String> fields = new ArrayList<>();
+    for (int f = 0; f < defn.GetFieldCount(); f++) {
+      fields.add(defn.GetFieldDefn(f).GetName());
+    }
+    // 件数を数えるのに全件走査が必要な形式では数えない
+    long total = Math.max(0, layer.GetFeatureCount(0));
+
+    CoordinateTransformation transform = null;
+    SpatialReference source = layer.GetSpatialRef();
+    if (source != null && source.IsSame(wgs84) == 0) {
+      source.SetAxisMappingStrategy(osr.OAMS_TRADITIONAL_GIS_ORDER);
+      transform = osr.CreateCoordinateTransformation(source, wgs84);
+      if (transform == null) {
+        throw new IOException("Unable to transform " + layerName + " to EPSG:4326");
+      }
+    }
+
+    Map<String, Group> layerGroups = new LinkedHashMap<>();
+    long done = 0;
+    layer.ResetReading();
+    db.beginTransaction();
+    try {
+      Feature feature;
+      while ((feature = layer.GetNextFeature()) != null) {
+        try {
+          String geometryType = writeFeature(insert, feature, layerIndex, fields, transform);
+          if (geometryType == null) {
+            skipped++;
+          } else {
+            Group group = layerGroups.get(geometryType);
+            if (group == null) {
+              group = new Group(layerIndex, layerName, geometryType, fields);
+              layerGroups.put(geometryType, group);
+            }
+            group.count++;
+          }
+        } finally {
+          feature.delete();
+        }
+        done++;
+        if (done % BATCH_SIZE == 0) {
+          db.setTransactionSuccessful();
+          db.endTransaction();
+          if (cancelChecker.isCancelled()) return null;
+          listener.onProgress(layerIndex, layerName, done, total);
+          db.beginTransaction();
+        }
+      }
+      db.setTransactionSuccessful();
+    } finally {
+      // 途中で中断した場合はトランザクションが開いていない
+      if (db.inTransaction()) {
+        db.endTransaction();
+      }
+      if (transform != null) {
+        transform.delete();
+      }
+    }
+    listener.onProgress(layerIndex, layerName, done, Math.max(total, done));
+    groups.addAll(layerGroups.values());
+    return done;
+  }
+
+  // 1フィーチャーを書き出してGeoJSONのジオメトリタイプを返す。取り込めないフィーチャーはnull
+  private String writeFeature(
+    SQLiteStatement insert,
+    Feature feature,
+    int layerIndex,
+    List<String> fields,
+    CoordinateTransformation transform
+  ) throws IOException {
+    Geometry geometry = feature.GetGeometryRef();
+    if (geometry == null) return null;
+    // 曲線などは直線で近似した型にする
+    if (geometry.HasCurveGeometry() != 0) {
+      geometry = geometry.GetLinearGeometry();
+      if (geometry == null) return null;
+    }
+    String geometryType = toGeoJsonType(ogr.GT_Flatten(geometry.GetGeometryType()));
+    if (geometryType == null) return null;
+    if (transform != null && geometry.Transform(transform) != 0) return null;
+
+    JSONObject properties = new JSONObject();
+    try {
+      for (int f = 0; f < fields.size(); f++) {
+        // geoJson2Dataは全フィールドを文字列として扱う
+        properties.put(fields.get(f), feature.IsFieldSetAndNotNull(f) ? feature.GetFieldAsString(f) : "");
+      }
+    } catch (JSONException e) {
+      throw new IOException(e);
+    }
+
+    insert.clearBindings();
+    insert.bindLong(1, layerIndex);
+    insert.bindString(2, geometryType);
+    insert.bindString(3, geometry.ExportToJson());
+    insert.bindString(4, properties.toString());
+    insert.executeInsert();
+    return geometryType;
+  }
+
+  private static String toGeoJsonType(int ogrType) {
+    if (ogrType == ogr.wkbPoint) return "Point";
+    if (ogrType == ogr.wkbMultiPoint) return "MultiPoint";
+    if (ogrType == ogr.wkbLineString) return "LineString";
+    if (ogrType == ogr.wkbMultiLineString) return "MultiLineString";
+    if (ogrType == ogr.wkbPolygon) return "Polygon";
+    if (ogrType == ogr.wkbMultiPolygon) return "MultiPolygon";
+    return null;
+  }
+}
@@ -1,4 +1,4 @@
-import { NativeModules, Platform } from 'react-native';
+import { NativeEventEmitter, NativeModules, Platform } from 'react-native';
 
 const LINKING_ERROR =
   `The package 'react-native-gdalwarp' doesn't seem to be linked. Make sure: \n\n` +
@@ -25,6 +25,108 @@ export type warpedFileType = {
   topLeft: { x: number; y: number };
   bottomRight: { x: number; y: number };
 };
-export function convert(uri: String): Promise<{ outputFiles: warpedFileType[] }> {
-  return Gdalwarp.convert(uri);
+export type ConvertFormat = 'PNG' | 'COG';
+
+// formatはAndroidのみ。COGはタイル化・内部オーバービュー付きのGeoTIFFを出力し、地図側でその場でタイルを切り出す
+export function convert(uri: String, format: ConvertFormat = 'PNG'): Promise<{ outputFiles: warpedFileType[] }> {
+  if (Platform.OS !== 'android') return Gdalwarp.convert(uri);
+  return Gdalwarp.convert(uri, format);
+}
+
+export type ConvertProgress = {
+  uri: string;
+  page: number;
+  pageCount: number;
+  completedPages: number;
+  pageProgress: number;
+};
+
+// 変換中のuriを指定して中断する。convertはE_CONVERT_CANCELLEDでrejectされる（Androidのみ）
+export function cancelConvert(uri: String): void {
+  if (Platform.OS !== 'android') return;
+  Gdalwarp.cancel(uri);
+}
+
+// ページごとのワープ進捗を購読する。戻り値で購読解除（Androidのみ）
+export function addConvertProgressListener(listener: (progress: ConvertProgress) => void): () => void {
+  if (Platform.OS !== 'android') return () => {};
+  const emitter = new NativeEventEmitter(Gdalwarp);
+  const subscription = emitter.addListener('GdalwarpProgress', listener);
+  return () => subscription.remove();
+}
+
+export type TileProgress = {
+  uri: string;
+  zoom: number;
+  zoomDone: number;
+  zoomTotal: number;
+  done: number;
+  total: number;
+};
+
+// convertで出力した画像からminZoom〜maxZoomのタイルを`${tileFolder}/z/x/y`に書き出す（Androidのみ）。戻り値はタイル数
+// formatがwebpならquality（0〜100）の非可逆、webp_losslessなら可逆のWebPで書く。全面透明・単色のタイルはPNGのまま
+export function generateTiles(
+  imagePath: String,
+  tileFolder: String,
+  tileSize: number,
+  minZoom: number,
+  maxZoom: number,
+  format: 'png' | 'webp' | 'webp_lossless' = 'png',
+  quality = 80
+): Promise<number> {
+  return Gdalwarp.generateTiles(imagePath, tileFolder, tileSize, minZoom, maxZoom, format, quality);
+}
+
+export const isGenerateTilesAvailable = () => Platform.OS === 'android' && NativeModules.Gdalwarp !== undefined;
+
+// タイル書き出しの進捗（ズームごと）を購読する。戻り値で購読解除（Androidのみ）
+export function addTileProgressListener(listener: (progress: TileProgress) => void): () => void {
+  if (Platform.OS !== 'android') return () => {};
+  const emitter = new NativeEventEmitter(Gdalwarp);
+  const subscription = emitter.addListener('GdalwarpTileProgress', listener);
+  return () => subscription.remove();
+}
+
+export type VectorGeometryType = 'Point' | 'MultiPoint' | 'LineString' | 'MultiLineString' | 'Polygon' | 'MultiPolygon';
+
+export type VectorImportGroup = {
+  layer: number;
+  layerName: string;
+  geometryType: VectorGeometryType;
+  count: number;
+  fields: string[];
+};
+
+export type VectorImportResult = {
+  groups: VectorImportGroup[];
+  imported: number;
+  skipped: number;
+};
+
+export type VectorImportProgress = {
+  uri: string;
+  layer: number;
+  layerName: string;
+  done: number;
+  total: number;
+};
+
+/**
+ * OGRで読めるベクターファイル（zip内のShapefileは/vsizip/のパス）をEPSG:4326に変換し、
+ * databaseUriのSQLiteのfeaturesテーブル(id, layer, geometry_type, geometry, properties)に書き出す（Androidのみ）。
+ * geometryとpropertiesはJSON文字列。戻り値はレイヤとジオメトリタイプごとの集計。cancelConvert(path)で中断できる
+ */
+export function importVector(path: String, databaseUri: String): Promise<VectorImportResult> {
+  return Gdalwarp.importVector(path, databaseUri);
+}
+
+export const isImportVectorAvailable = () => Platform.OS === 'android' && NativeModules.Gdalwarp !== undefined;
+
+// 取り込みの進捗（レイヤごと）を購読する。戻り値で購読解除（Androidのみ）
+export function addImportProgressListener(listener: (progress: VectorImportProgress) => void): () => void {
+  if (Platform.OS !== 'android') return () => {};
+  const emitter = new NativeEventEmitter(Gdalwarp);
+  const subscription = emitter.addListener('GdalwarpImportProgress', listener);
+  return () => subscription.remove();
 }
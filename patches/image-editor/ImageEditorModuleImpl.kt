@@ -43,6 +43,12 @@ import kotlin.math.min
 import android.graphics.Canvas
 import android.util.Log
 import android.graphics.Paint
+import com.facebook.react.bridge.Arguments
+import com.facebook.react.modules.core.DeviceEventManagerModule
+import java.util.concurrent.atomic.AtomicInteger
+import kotlinx.coroutines.coroutineScope
+import kotlinx.coroutines.sync.Semaphore
+import kotlinx.coroutines.sync.withPermit
 
 class ImageEditorModuleImpl(private val reactContext: ReactApplicationContext) {
     private val moduleCoroutineScope = CoroutineScope(Dispatchers.Default)
@@ -93,6 +99,11 @@ class ImageEditorModuleImpl(private val reactContext: ReactApplicationContext) {
      *   is passed to this is the file:// URI of the new image
      */
     fun cropImage(uri: String?, options: ReadableMap, promise: Promise) {
+        // EcorisMap: jobsがあれば1つのデコーダーで複数の領域をまとめて切り出す
+        if (options.hasKey("jobs")) {
+            cropImages(uri, options, promise)
+            return
+        }
         val offset = if (options.hasKey("offset")) options.getMap("offset") else null
         val size = if (options.hasKey("size")) options.getMap("size") else null
         val quality =
@@ -158,6 +169,7 @@ class ImageEditorModuleImpl(private val reactContext: ReactApplicationContext) {
 
                 val tempFile = createTempFile(reactContext, mimeType)
                 writeCompressedBitmapToFile(cropped, mimeType, tempFile, quality)
+                cropped.recycle()
                 if (mimeType == "image/jpeg") {
                     copyExif(reactContext, Uri.parse(uri), tempFile)
                 }
@@ -259,8 +271,6 @@ class ImageEditorModuleImpl(private val reactContext: ReactApplicationContext) {
         val scaleMatrix = Matrix().apply { setScale(cropScaleX, cropScaleY) }
         val filter = true
 
-        val bitmap = Bitmap.createBitmap(targetWidth, targetHeight, Bitmap.Config.ARGB_8888)
-        
         val resultBitmap =  openBitmapInputStream(uri)?.use {
             // Efficiently crops image without loading full resolution into memory
             // https://developer.android.com/reference/android/graphics/BitmapRegionDecoder.html
@@ -271,41 +281,7 @@ class ImageEditorModuleImpl(private val reactContext: ReactApplicationContext) {
                     @Suppress("DEPRECATION") BitmapRegionDecoder.newInstance(it, false)
                 }
             return@use try {
-
-                val cropStartX = if(x<0) 0 else x
-                val cropStartY = if(y<0) 0 else y
-                
-              
-                val cropEndX = if(x+width>decoder!!.width) decoder!!.width else (x+width)
-                val cropEndY = if(y+height>decoder!!.height) decoder!!.height else (y+height)
-                val cropWidth = cropEndX - cropStartX
-                val cropHeight = cropEndY - cropStartY 
-    
-                var rect: Rect
-                if (cropWidth <= 0 || cropHeight <= 0){
-                    rect = Rect(0, 0, 1, 1)
-                }else{
-                    rect = Rect(cropStartX, cropStartY, cropEndX, cropEndY)
-                }
-                val croppedBitmap = decoder!!.decodeRegion(rect, outOptions)
-        
-                val posX = if(x<0) -1*x else 0
-                val posY = if(y<0) -1*y else 0
-                //scaleMatrixを使ってリサイズ
-                Canvas(bitmap).apply {
-                    val paint = Paint() // 描画に使用するPaintオブジェクトを作成
-                    // 必要に応じてPaintオブジェクトをカスタマイズ
-                    val matrix = Matrix().apply {
-                        postTranslate(posX.toFloat(), posY.toFloat())
-                        postScale(cropScaleX, cropScaleY)
-                    }
-                    drawBitmap(croppedBitmap, matrix, paint)
-                }
-
-                // Canvas(resultBitmap).apply {
-                //     drawBitmap(croppedBitmap, posX.toFloat(), posY.toFloat(), null)
-                // }
-                return bitmap
+                cropAndResizeRegion(decoder!!, outOptions, x, y, width, height, targetWidth, targetHeight)
             } finally {
                 decoder!!.recycle()
             }
@@ -316,6 +292,301 @@ class ImageEditorModuleImpl(private val reactContext: ReactApplicationContext) {
         //return Bitmap.createBitmap(bitmap, cropX, cropY, cropWidth, cropHeight, scaleMatrix, filter)
     }
 
+    /**
+     * Crops and scales one region with an already opened decoder. Shared by [cropAndResizeTask] and
+     * the batch crop, which decodes many regions of the same image.
+     *
+     * The region is decoded with the largest power-of-two `inSampleSize` that still covers the
+     * target, into a pooled bitmap when one is large enough, so low-zoom tiles cut from a large
+     * render never hold the full-resolution region in memory.
+     */
+    private fun cropAndResizeRegion(
+        decoder: BitmapRegionDecoder,
+        outOptions: BitmapFactory.Options,
+        x: Int,
+        y: Int,
+        width: Int,
+        height: Int,
+        targetWidth: Int,
+        targetHeight: Int,
+    ): Bitmap {
+        val cropStartX = if(x<0) 0 else x
+        val cropStartY = if(y<0) 0 else y
+        val cropEndX = if(x+width>decoder.width) decoder.width else (x+width)
+        val cropEndY = if(y+height>decoder.height) decoder.height else (y+height)
+        val cropWidth = cropEndX - cropStartX
+        val cropHeight = cropEndY - cropStartY
+
+        var rect: Rect
+        if (cropWidth <= 0 || cropHeight <= 0){
+            rect = Rect(0, 0, 1, 1)
+        }else{
+            rect = Rect(cropStartX, cropStartY, cropEndX, cropEndY)
+        }
+
+        val sampleSize = getDecodeSampleSize(width, height, targetWidth, targetHeight)
+        outOptions.inSampleSize = sampleSize
+        outOptions.inMutable = true
+        val decodedBytes = (rect.width() / sampleSize + 1).toLong() * (rect.height() / sampleSize + 1) * 4
+        val estimateKb = ((decodedBytes + targetWidth.toLong() * targetHeight * 4) / 1024 + 1)
+            .coerceAtMost(cropMemoryBudgetKb.toLong()).toInt()
+
+        cropMemoryBudget.acquire(estimateKb)
+        try {
+            val bitmap = Bitmap.createBitmap(targetWidth, targetHeight, Bitmap.Config.ARGB_8888)
+            outOptions.inBitmap = takePooledBitmap(decodedBytes)
+            val croppedBitmap =
+                try {
+                    decoder.decodeRegion(rect, outOptions)
+                } catch (e: IllegalArgumentException) {
+                    // The pooled bitmap could not be reused for this region
+                    outOptions.inBitmap?.let { recyclePooledBitmap(it) }
+                    outOptions.inBitmap = null
+                    decoder.decodeRegion(rect, outOptions)
+                }
+            outOptions.inBitmap = null
+
+            // Offsets and scale are relative to the subsampled region
+            val posX = if(x<0) -1*x / sampleSize.toFloat() else 0f
+            val posY = if(y<0) -1*y / sampleSize.toFloat() else 0f
+            val cropScaleX = targetWidth/width.toFloat() * sampleSize
+            val cropScaleY = targetHeight/height.toFloat() * sampleSize
+            //scaleMatrixを使ってリサイズ
+            Canvas(bitmap).apply {
+                val paint = Paint(Paint.FILTER_BITMAP_FLAG)
+                val matrix = Matrix().apply {
+                    postTranslate(posX, posY)
+                    postScale(cropScaleX, cropScaleY)
+                }
+                drawBitmap(croppedBitmap, matrix, paint)
+            }
+            recyclePooledBitmap(croppedBitmap)
+            return bitmap
+        } finally {
+            cropMemoryBudget.release(estimateKb)
+        }
+    }
+
+    private fun takePooledBitmap(bytes: Long): Bitmap? =
+        synchronized(regionBitmapPool) {
+            val bitmap = regionBitmapPool.firstOrNull { it.allocationByteCount >= bytes }
+            if (bitmap != null) regionBitmapPool.remove(bitmap)
+            bitmap
+        }
+
+    // Keeps a few mutable region bitmaps for the next decode; the rest are released right away
+    private fun recyclePooledBitmap(bitmap: Bitmap) {
+        if (!bitmap.isMutable || bitmap.isRecycled) {
+            bitmap.recycle()
+            return
+        }
+        synchronized(regionBitmapPool) {
+            if (regionBitmapPool.size < REGION_BITMAP_POOL_SIZE) {
+                regionBitmapPool.addLast(bitmap)
+                return
+            }
+        }
+        bitmap.recycle()
+    }
+
+    /**
+     * Peak memory (in KB) that decoded regions and their targets may use at once, across all
+     * crops. A crop waits until its estimate fits, so many small crops run in parallel while large
+     * ones are serialized instead of running out of memory.
+     */
+    private val cropMemoryBudgetKb = max(1, (Runtime.getRuntime().maxMemory() / 4 / 1024).toInt())
+    private val cropMemoryBudget = java.util.concurrent.Semaphore(cropMemoryBudgetKb, true)
+
+    /** Decoded-region bitmaps kept for reuse through `inBitmap`. */
+    private val regionBitmapPool = ArrayDeque<Bitmap>()
+
+    private class CropJob(
+        val x: Int,
+        val y: Int,
+        val width: Int,
+        val height: Int,
+        val targetWidth: Int,
+        val targetHeight: Int,
+        val outputPath: String
+    )
+
+    /**
+     * Crops many regions of one image. `options.jobs` is a list of
+     * `{offset: {x, y}, size: {width, height}, displaySize: {width, height}, outputPath}` and every
+     * result is written straight to its `outputPath` (parent directories are created). The source
+     * is opened and indexed once; the jobs run on at most `options.concurrency` coroutines (default:
+     * cores - 1), lowered so that `options.memoryBudget` (bytes) covers that many jobs at once.
+     * Results keep the source format unless `options.format` is `webp` (lossy at `options.quality`)
+     * or `webp_lossless`; see [writeBatchResult].
+     * Progress is emitted as `RNCImageEditorCropProgress` `{uri, done, total}` and the
+     * promise resolves with `{done, failed}`.
+     */
+    private fun cropImages(uri: String?, options: ReadableMap, promise: Promise) {
+        if (uri.isNullOrEmpty()) {
+            throw JSApplicationIllegalArgumentException("Please specify a URI")
+        }
+        val jobArray = options.getArray("jobs")!!
+        val quality =
+            if (options.hasKey("quality")) (options.getDouble("quality") * 100).toInt() else 90
+        val format = if (options.hasKey("format")) options.getString("format") else null
+        var concurrency =
+            if (options.hasKey("concurrency")) max(1, options.getInt("concurrency"))
+            else max(1, Runtime.getRuntime().availableProcessors() - 1)
+        val jobs =
+            (0 until jobArray.size()).map { i ->
+                val job = jobArray.getMap(i)!!
+                val offset = job.getMap("offset")!!
+                val size = job.getMap("size")!!
+                val displaySize = job.getMap("displaySize")!!
+                CropJob(
+                    offset.getDouble("x").toInt(),
+                    offset.getDouble("y").toInt(),
+                    size.getDouble("width").toInt(),
+                    size.getDouble("height").toInt(),
+                    displaySize.getDouble("width").toInt(),
+                    displaySize.getDouble("height").toInt(),
+                    job.getString("outputPath")!!
+                )
+            }
+        if (options.hasKey("memoryBudget") && jobs.isNotEmpty()) {
+            // Peak bytes of the largest job after subsampling, so the batch stays under the budget
+            val jobBytes =
+                jobs.maxOf { job ->
+                    val sampleSize =
+                        getDecodeSampleSize(job.width, job.height, job.targetWidth, job.targetHeight)
+                    (job.width / sampleSize + 1).toLong() * (job.height / sampleSize + 1) * 4 +
+                        job.targetWidth.toLong() * job.targetHeight * 4
+                }
+            val budget = options.getDouble("memoryBudget").toLong()
+            concurrency = min(concurrency, max(1L, budget / jobBytes).toInt())
+        }
+
+        moduleCoroutineScope.launch {
+            try {
+                // MIME type only; no pixels are decoded here
+                val boundsOptions = BitmapFactory.Options().apply { inJustDecodeBounds = true }
+                openBitmapInputStream(uri)?.use { BitmapFactory.decodeStream(it, null, boundsOptions) }
+                val mimeType = boundsOptions.outMimeType
+                if (mimeType.isNullOrEmpty()) {
+                    throw IOException("Could not determine MIME type")
+                }
+                val decoder =
+                    openBitmapInputStream(uri)?.use {
+                        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.S) {
+                            BitmapRegionDecoder.newInstance(it)
+                        } else {
+                            @Suppress("DEPRECATION") BitmapRegionDecoder.newInstance(it, false)
+                        }
+                    } ?: throw IOException("Cannot decode bitmap: $uri")
+
+                val done = AtomicInteger(0)
+                val failed = AtomicInteger(0)
+                val semaphore = Semaphore(concurrency)
+                try {
+                    coroutineScope {
+                        for (job in jobs) {
+                            launch {
+                                semaphore.withPermit {
+                                    try {
+                                        val cropped =
+                                            cropAndResizeRegion(
+                                                decoder,
+                                                BitmapFactory.Options(),
+                                                job.x,
+                                                job.y,
+                                                job.width,
+                                                job.height,
+                                                job.targetWidth,
+                                                job.targetHeight
+                                            )
+                                        val outputFile = toFile(job.outputPath)
+                                        outputFile.parentFile?.mkdirs()
+                                        writeBatchResult(cropped, format, mimeType, outputFile, quality)
+                                        cropped.recycle()
+                                    } catch (e: Exception) {
+                                        failed.incrementAndGet()
+                                        FLog.w(ReactConstants.TAG, "cropImages: ${job.outputPath}", e)
+                                    }
+                                    val count = done.incrementAndGet()
+                                    if (count % 16 == 0 || count == jobs.size) {
+                                        emitCropProgress(uri, count, jobs.size)
+                                    }
+                                }
+                            }
+                        }
+                    }
+                } finally {
+                    decoder.recycle()
+                }
+                val result = Arguments.createMap()
+                result.putInt("done", done.get() - failed.get())
+                result.putInt("failed", failed.get())
+                promise.resolve(result)
+            } catch (e: Exception) {
+                promise.reject(e)
+            }
+        }
+    }
+
+    /**
+     * Writes one result of [cropImages]. With `format` `webp` or `webp_lossless` the result is
+     * stored as WebP, except when it is fully transparent or a single colour: those stay in the
+     * source format, which is already tiny for them.
+     */
+    @Throws(IOException::class)
+    private fun writeBatchResult(
+        bitmap: Bitmap,
+        format: String?,
+        mimeType: String,
+        file: File,
+        quality: Int
+    ) {
+        val lossless = format == "webp_lossless"
+        if ((format != "webp" && !lossless) || isUniform(bitmap)) {
+            writeCompressedBitmapToFile(bitmap, mimeType, file, quality)
+            return
+        }
+        val compressFormat =
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.R) {
+                if (lossless) CompressFormat.WEBP_LOSSLESS else CompressFormat.WEBP_LOSSY
+            } else {
+                // Quality 100 is lossless on API 29 and the best lossy quality before that
+                @Suppress("DEPRECATION") CompressFormat.WEBP
+            }
+        FileOutputStream(file).use { bitmap.compress(compressFormat, if (lossless) 100 else quality, it) }
+    }
+
+    /** True when every pixel has the same colour, treating all transparent pixels as equal. */
+    private fun isUniform(bitmap: Bitmap): Boolean {
+        val row = IntArray(bitmap.width)
+        var first = 0
+        for (y in 0 until bitmap.height) {
+            bitmap.getPixels(row, 0, bitmap.width, 0, y, bitmap.width, 1)
+            for (x in row.indices) {
+                val color = if (row[x] ushr 24 == 0) 0 else row[x]
+                if (x == 0 && y == 0) {
+                    first = color
+                } else if (color != first) {
+                    return false
+                }
+            }
+        }
+        return true
+    }
+
+    private fun emitCropProgress(uri: String, done: Int, total: Int) {
+        val params = Arguments.createMap()
+        params.putString("uri", uri)
+        params.putInt("done", done)
+        params.putInt("total", total)
+        reactContext
+            .getJSModule(DeviceEventManagerModule.RCTDeviceEventEmitter::class.java)
+            .emit(CROP_PROGRESS_EVENT, params)
+    }
+
+    private fun toFile(path: String): File =
+        if (path.startsWith("file://")) File(Uri.parse(path).path!!) else File(path)
+
     private fun openBitmapInputStream(uri: String): InputStream? {
         return if (isLocalUri(uri)) {
             reactContext.contentResolver.openInputStream(Uri.parse(uri))
@@ -361,6 +632,9 @@ class ImageEditorModuleImpl(private val reactContext: ReactApplicationContext) {
                 ExifInterface.TAG_WHITE_BALANCE
             )
 
+        private const val CROP_PROGRESS_EVENT = "RNCImageEditorCropProgress"
+        private const val REGION_BITMAP_POOL_SIZE = 4
+
         // Utils
         @Throws(IOException::class)
         private fun copyExif(context: Context, oldImage: Uri, newFile: File) {
@@ -1,26 +1,47 @@
 import React from 'react';
 import { View, Text, StyleSheet, ActivityIndicator, Modal } from 'react-native';
 import { COLOR } from '../../constants/AppConstants';
+import { Pressable } from '../atoms/Pressable';
+import { t } from '../../i18n/config';
 
 interface Props {
   visible: boolean;
   text: string;
+  // 指定すると中断のボタンを出す
+  onCancel?: () => void;
 }
 
 export const Loading = React.memo((props: Props) => {
-  const { text, visible } = props;
+  const { text, visible, onCancel } = props;
 
   return (
     <Modal animationType="none" transparent={true} visible={visible}>
       <View style={styles.modalContent}>
         <ActivityIndicator color={COLOR.BLUE} size="large" />
         <Text style={styles.textStyle}>{text}</Text>
+        {onCancel && (
+          <Pressable style={styles.cancelButton} onPress={onCancel}>
+            <Text style={styles.cancelText}>{t('common.cancel')}</Text>
+          </Pressable>
+        )}
       </View>
     </Modal>
   );
 });
 
 const styles = StyleSheet.create({
+  cancelButton: {
+    borderColor: COLOR.BLUE,
+    borderRadius: 5,
+    borderWidth: 1,
+    marginTop: 20,
+    paddingHorizontal: 20,
+    paddingVertical: 8,
+  },
+  cancelText: {
+    color: COLOR.BLUE,
+    fontWeight: 'bold',
+  },
   modalContent: {
     alignItems: 'center',
     backgroundColor: COLOR.CAROUSEL_BACKGROUND,
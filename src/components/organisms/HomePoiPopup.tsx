@@ -1,11 +1,13 @@
 import React, { useContext, useCallback, useMemo, useState, useEffect } from 'react';
 import { View, Text, Linking, Platform } from 'react-native';
+import { shallowEqual, useSelector } from 'react-redux';
+import { RootState } from '../../store';
 import { Pressable } from '../atoms/Pressable';
 import { MapViewContext } from '../../contexts/MapView';
 import { COLOR } from '../../constants/AppConstants';
 import { latLonToXY } from '../../utils/Coords';
 import { haversineKm } from '../../utils/Location';
-import { getGsiElevation } from '../../utils/Elevation';
+import { getPointElevation } from '../../utils/Elevation';
 import { copyToClipboard } from '../../utils/Clipboard';
 import { useWindow } from '../../hooks/useWindow';
 import { t } from '../../i18n/config';
@@ -14,6 +16,8 @@ export const HomePoiPopup = React.memo(() => {
   const { poiInfo, setPoiInfo, mapLocationInfo, setMapLocationInfo, mapViewRef, currentLocation, gpsState } =
     useContext(MapViewContext);
   const { mapRegion, mapSize } = useWindow();
+  const tileMaps = useSelector((state: RootState) => state.tileMaps);
+  const isOffline = useSelector((state: RootState) => state.settings.isOffline, shallowEqual);
   const WIDTH = 150;
 
   // POIまたは通常の地図位置のいずれかを取得
@@ -28,7 +32,7 @@ export const HomePoiPopup = React.memo(() => {
     return t('Home.poi.distanceFromCurrentLocation', { distance });
   }, [isPOI, locationInfo, gpsState, currentLocation]);
 
-  // 長押し/POI位置の標高を国土地理院APIから取得する
+  // 長押し/POI位置の標高。オンラインは国土地理院API、オフラインは標高タイルから求める
   // undefined: 取得中, null: 取得失敗（範囲外等）, number: 標高(m)
   const lat = locationInfo?.coordinate.latitude;
   const lon = locationInfo?.coordinate.longitude;
@@ -40,13 +44,15 @@ export const HomePoiPopup = React.memo(() => {
     }
     let cancelled = false;
     setElevation(undefined);
-    getGsiElevation(lat, lon).then((e) => {
+    getPointElevation(tileMaps, { latitude: lat, longitude: lon }, { offline: isOffline }).then((e) => {
       if (!cancelled) setElevation(e);
     });
     return () => {
       cancelled = true;
     };
-  }, [lat, lon]);
+    // 地図の表示切り替えでは取り直さない
+    // eslint-disable-next-line react-hooks/exhaustive-deps
+  }, [lat, lon, isOffline]);
 
   const elevationText = useMemo(() => {
     if (elevation === undefined) return t('Home.poi.elevation', { elevation: '…' });
@@ -33,6 +33,14 @@ import { useSelector } from 'react-redux';
 import { RootState } from '../../store';
 import { isMapMemoDrawTool } from '../../utils/General';
 import { withTileSignature } from '../../utils/TileSignature';
+import {
+  buildCompositeTileUrl,
+  COMPOSITE_TILE_FOLDER,
+  groupCompositeTileMaps,
+  isPMTileMap,
+  TileMapEntryType,
+} from '../../utils/CompositeTile';
+import { tileFormatOptions } from '../../utils/TileFormat';
 import { TileMapType, PaperOrientationType, PaperSizeType, ScaleType } from '../../types';
 import { MapViewContext } from '../../contexts/MapView';
 import { DrawingToolsContext } from '../../contexts/DrawingTools';
@@ -78,74 +86,127 @@ const TileMaps = React.memo(({ tileMaps, isOffline }: TileMapsProps) => {
   // tileMap.url自体は書き換えず描画直前に合成する。urlを変えるとkeyが変わり、
   // iOSでタイルキャッシュがクリアされてオフライン用のダウンロードが無駄になるため。
   const tileSignatures = useSelector((state: RootState) => state.tileSignatures);
+  // 続けて重なるラスタ地図をネイティブで1枚に合成する（Androidのみ・設定で有効にしたとき）
+  const compositeTileMaps = useSelector(
+    (state: RootState) => Platform.OS === 'android' && state.settings.compositeTileMaps === true
+  );
+
+  const isPdfMap = (tileMap: TileMapType) => tileMap.url.endsWith('.pdf') || tileMap.url.startsWith('pdf://');
+
+  const urlTileTemplate = (tileMap: TileMapType) =>
+    isPdfMap(tileMap) ? 'file://dummy/{z}/{x}/{y}.png' : withTileSignature(tileMap.url, tileSignatures);
+
+  const urlTileMaximumNativeZ = (tileMap: TileMapType) =>
+    //offlineで通常のタイルの場合、ダウンロードしたレベルの16にセットする
+    isOffline && !isPdfMap(tileMap) && tileMap.overzoomThreshold > 16 ? 16 : tileMap.overzoomThreshold;
+
+  const renderPMTile = (tileMap: TileMapType, mapIndex: number) => (
+    <PMTile
+      key={
+        Platform.OS === 'ios' ? `${tileMap.url}-${isOffline}-${tileMap.styleURL}` : `${tileMap.id}-${tileMap.styleURL}`
+      } //オンラインとオフラインでキーを変更しないとキャッシュがクリアされない。urlの変更でキーを変更すると、キャッシュがクリアされる。
+      urlTemplate={withTileSignature(tileMap.url, tileSignatures).replace('pmtiles://', '')}
+      styleURL={tileMap.styleURL ? withTileSignature(tileMap.styleURL, tileSignatures) : tileMap.styleURL}
+      flipY={false}
+      opacity={1 - tileMap.transparency}
+      //tileSize={256} rasterは256、vectorは512で固定
+      minimumZ={0}
+      maximumZ={22}
+      zIndex={mapIndex}
+      doubleTileSize={false}
+      maximumNativeZ={
+        //offlineで通常のタイルの場合、ダウンロードしたレベルの16にセットする.
+        //vectorタイルなら18
+        isOffline && tileMap.overzoomThreshold > 16 && !tileMap.isVector
+          ? 16
+          : isOffline && tileMap.overzoomThreshold > 18 && tileMap.isVector
+          ? 18
+          : tileMap.overzoomThreshold
+      }
+      tileCachePath={`${TILE_FOLDER}/${tileMap.id}`}
+      //tileCacheMaxAge={604800}
+      offlineMode={isOffline}
+      isVector={tileMap.isVector}
+    />
+  );
+
+  const renderUrlTile = (tileMap: TileMapType, mapIndex: number) => (
+    <UrlTile
+      //オンラインとオフラインでキーを変更しないとキャッシュがクリアされない。
+      //Androidはタイルの読み方（COGかフォルダか）を作成時に決めるので、redrawで作り直す
+      key={Platform.OS === 'ios' ? `${tileMap.id}-${isOffline}-${tileMap.redraw}` : `${tileMap.id}-${tileMap.redraw}`}
+      urlTemplate={urlTileTemplate(tileMap)}
+      flipY={tileMap.flipY}
+      opacity={1 - tileMap.transparency}
+      tileSize={tileMap.tileSize ? tileMap.tileSize : 256}
+      minimumZ={tileMap.minimumZ}
+      maximumZ={tileMap.maximumZ}
+      zIndex={mapIndex}
+      doubleTileSize={tileMap.highResolutionEnabled}
+      maximumNativeZ={urlTileMaximumNativeZ(tileMap)}
+      tileCachePath={`${TILE_FOLDER}/${tileMap.id}`}
+      offlineMode={isOffline}
+    />
+  );
+
+  // 各地図のタイルはそれぞれのフォルダから読み、合成した絵だけをcompositeフォルダに持つ
+  const renderCompositeTile = (entries: TileMapEntryType[]) => (
+    <UrlTile
+      key={`composite-${entries.map(({ tileMap }) => tileMap.id).join('-')}`}
+      urlTemplate={buildCompositeTileUrl(
+        entries.map(({ tileMap }) => {
+          const tileFormat = tileFormatOptions(tileMap);
+          return {
+            url: urlTileTemplate(tileMap),
+            tileCachePath: `${TILE_FOLDER}/${tileMap.id}`,
+            opacity: 1 - tileMap.transparency,
+            tileSize: tileMap.tileSize ? tileMap.tileSize : 256,
+            minimumZ: tileMap.minimumZ,
+            maximumZ: tileMap.maximumZ,
+            maximumNativeZ: urlTileMaximumNativeZ(tileMap),
+            flipY: tileMap.flipY,
+            doubleTileSize: tileMap.highResolutionEnabled,
+            tileFormat: tileFormat?.format,
+            tileQuality: tileFormat?.quality,
+          };
+        })
+      )}
+      opacity={1}
+      tileSize={256}
+      minimumZ={0}
+      maximumZ={22}
+      zIndex={entries[0].mapIndex}
+      doubleTileSize={false}
+      maximumNativeZ={22}
+      tileCachePath={COMPOSITE_TILE_FOLDER}
+      offlineMode={isOffline}
+    />
+  );
+
+  const entries: TileMapEntryType[] = tileMaps
+    .slice(0)
+    .reverse()
+    .map((tileMap: TileMapType, mapIndex: number) => ({ tileMap, mapIndex }))
+    .filter(({ tileMap }) => tileMap.visible && !tileMap.isGroup && tileMap.url);
+
+  if (!compositeTileMaps) {
+    return (
+      <>
+        {entries.map(({ tileMap, mapIndex }) =>
+          isPMTileMap(tileMap) ? renderPMTile(tileMap, mapIndex) : renderUrlTile(tileMap, mapIndex)
+        )}
+      </>
+    );
+  }
   return (
     <>
-      {tileMaps
-        .slice(0)
-        .reverse()
-        .map((tileMap: TileMapType, mapIndex: number) =>
-          tileMap.visible && !tileMap.isGroup && tileMap.url ? (
-            tileMap.url.startsWith('pmtiles://') ||
-            tileMap.url.includes('.pmtiles') ||
-            tileMap.url.includes('.pbf') ? (
-              <PMTile
-                key={
-                  Platform.OS === 'ios'
-                    ? `${tileMap.url}-${isOffline}-${tileMap.styleURL}`
-                    : `${tileMap.id}-${tileMap.styleURL}`
-                } //オンラインとオフラインでキーを変更しないとキャッシュがクリアされない。urlの変更でキーを変更すると、キャッシュがクリアされる。
-                urlTemplate={withTileSignature(tileMap.url, tileSignatures).replace('pmtiles://', '')}
-                styleURL={tileMap.styleURL ? withTileSignature(tileMap.styleURL, tileSignatures) : tileMap.styleURL}
-                flipY={false}
-                opacity={1 - tileMap.transparency}
-                //tileSize={256} rasterは256、vectorは512で固定
-                minimumZ={0}
-                maximumZ={22}
-                zIndex={mapIndex}
-                doubleTileSize={false}
-                maximumNativeZ={
-                  //offlineで通常のタイルの場合、ダウンロードしたレベルの16にセットする.
-                  //vectorタイルなら18
-                  isOffline && tileMap.overzoomThreshold > 16 && !tileMap.isVector
-                    ? 16
-                    : isOffline && tileMap.overzoomThreshold > 18 && tileMap.isVector
-                    ? 18
-                    : tileMap.overzoomThreshold
-                }
-                tileCachePath={`${TILE_FOLDER}/${tileMap.id}`}
-                //tileCacheMaxAge={604800}
-                offlineMode={isOffline}
-                isVector={tileMap.isVector}
-              />
-            ) : (
-              <UrlTile
-                key={Platform.OS === 'ios' ? `${tileMap.id}-${isOffline}-${tileMap.redraw}` : `${tileMap.id}`} //オンラインとオフラインでキーを変更しないとキャッシュがクリアされない。
-                urlTemplate={
-                  tileMap.url.endsWith('.pdf') || tileMap.url.startsWith('pdf://')
-                    ? 'file://dummy/{z}/{x}/{y}.png'
-                    : withTileSignature(tileMap.url, tileSignatures)
-                }
-                flipY={tileMap.flipY}
-                opacity={1 - tileMap.transparency}
-                tileSize={tileMap.tileSize ? tileMap.tileSize : 256}
-                minimumZ={tileMap.minimumZ}
-                maximumZ={tileMap.maximumZ}
-                zIndex={mapIndex}
-                doubleTileSize={tileMap.highResolutionEnabled}
-                maximumNativeZ={
-                  //offlineで通常のタイルの場合、ダウンロードしたレベルの16にセットする
-                  isOffline &&
-                  !(tileMap.url.endsWith('.pdf') || tileMap.url.startsWith('pdf://')) &&
-                  tileMap.overzoomThreshold > 16
-                    ? 16
-                    : tileMap.overzoomThreshold
-                }
-                tileCachePath={`${TILE_FOLDER}/${tileMap.id}`}
-                offlineMode={isOffline}
-              />
-            )
-          ) : null
-        )}
+      {groupCompositeTileMaps(entries).map((run) =>
+        run.composite
+          ? renderCompositeTile(run.entries)
+          : isPMTileMap(run.entry.tileMap)
+          ? renderPMTile(run.entry.tileMap, run.entry.mapIndex)
+          : renderUrlTile(run.entry.tileMap, run.entry.mapIndex)
+      )}
     </>
   );
 });
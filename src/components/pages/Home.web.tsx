@@ -75,7 +75,7 @@ import {
   createShadingProtocolHandler,
   SHADING_PROTOCOL,
 } from '../../utils/shadingTileProtocol.web';
-import { isShadingUrl, toDemUrl } from '../../utils/terrainShading';
+import { demRenderOptions, isShadingUrl, toDemUrl } from '../../utils/terrainShading';
 import { withTileSignature } from '../../utils/TileSignature';
 import { tileToWebMercator } from '../../utils/Tile';
 import { fromBlob } from 'geotiff';
@@ -768,14 +768,24 @@ export default function HomeScreen() {
           } else if (isShadingUrl(tileMap.url)) {
             // 標高タイルを自前で取得・計算するため、raster-demではなく通常のラスタとして扱う。
             // maxzoomは標高タイルが実在する最大ズーム。これを超える分はmaplibreが拡大表示する。
+            // 等高線は拡大するとぼやけて間隔も粗いままなので、最大ズームまで描き直す
+            const render = demRenderOptions(tileMap.url);
+            const nativeMaxZoom = Math.min(tileMap.overzoomThreshold ?? 15, tileMap.maximumZ ?? 15);
             return {
               ...result,
               [tileMap.id]: {
                 type: 'raster' as const,
-                tiles: [buildShadingTileUrl(withTileSignature(toDemUrl(tileMap.url), tileSignatures), tileMap.flipY)],
+                tiles: [
+                  buildShadingTileUrl(
+                    withTileSignature(toDemUrl(tileMap.url), tileSignatures),
+                    tileMap.flipY,
+                    render,
+                    nativeMaxZoom
+                  ),
+                ],
                 tileSize: 256,
                 minzoom: tileMap.minimumZ || 0,
-                maxzoom: Math.min(tileMap.overzoomThreshold ?? 15, tileMap.maximumZ ?? 15),
+                maxzoom: render.contour ? tileMap.maximumZ ?? 15 : nativeMaxZoom,
                 scheme: 'xyz' as const,
                 attribution: tileMap.attribution,
               },
@@ -1,4 +1,4 @@
-import React from 'react';
+import React, { useContext } from 'react';
 import { View, StyleSheet, Platform } from 'react-native';
 import { LayersTable } from '../organisms/LayersTable';
 import { LayerButtons } from '../organisms/LayerButtons';
@@ -6,13 +6,27 @@ import { LayerButtons } from '../organisms/LayerButtons';
 import { ScrollView } from 'react-native-gesture-handler';
 import { t } from '../../i18n/config';
 import { BottomSheetHeader } from '../molecules/BottomSheetHeader';
+import { Loading } from '../molecules/Loading';
+import { LayersContext } from '../../contexts/Layers';
 
 export default function LayerScreen() {
   //console.log('render Layer');
+  const { vectorImportStatus, pressCancelVectorImport } = useContext(LayersContext);
+
+  // ネイティブでのベクターファイルの取り込み中は、レイヤごとの件数を出す
+  const vectorImportText =
+    vectorImportStatus === undefined || vectorImportStatus.total === 0
+      ? t('common.processing')
+      : `${t('common.processing')}\n${vectorImportStatus.layerName} ${vectorImportStatus.done}/${vectorImportStatus.total}`;
 
   return (
     <View style={styles.container}>
       <BottomSheetHeader title={t('Layers.navigation.title')} />
+      <Loading
+        visible={vectorImportStatus !== undefined}
+        text={vectorImportText}
+        onCancel={vectorImportStatus?.cancelable ? pressCancelVectorImport : undefined}
+      />
       <View style={styles.tableContainer}>
         {Platform.OS === 'web' ? (
           <ScrollView horizontal={true} contentContainerStyle={{ flexGrow: 1 }}>
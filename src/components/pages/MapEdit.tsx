@@ -1,5 +1,5 @@
 import React, { useContext } from 'react';
-import { View, StyleSheet, Text, TextInput, ScrollView } from 'react-native';
+import { View, StyleSheet, Text, TextInput, ScrollView, Platform } from 'react-native';
 import { MapEditContext } from '../../contexts/MapEdit';
 import { COLOR, MAPS_BTN } from '../../constants/AppConstants';
 import { MAP_PRESETS } from '../../constants/Presets';
@@ -12,6 +12,14 @@ import Slider from '../atoms/Slider';
 import { useWindow } from '../../hooks/useWindow';
 import { useFeatureFlags } from '../../hooks/useFeatureFlags';
 import { BottomSheetHeader } from '../molecules/BottomSheetHeader';
+import { canTranscodeTiles, DEFAULT_TILE_QUALITY } from '../../utils/TileFormat';
+import { TileFormatType } from '../../types';
+
+const TILE_FORMATS: { value: TileFormatType; labelKey: string }[] = [
+  { value: 'original', labelKey: 'MapEdit.label.tileFormatOriginal' },
+  { value: 'webp', labelKey: 'MapEdit.label.tileFormatWebp' },
+  { value: 'webp_lossless', labelKey: 'MapEdit.label.tileFormatWebpLossless' },
+];
 
 export default function MapEditScreen() {
   const {
@@ -33,11 +41,16 @@ export default function MapEditScreen() {
     changeOverzoomThreshold,
     changeHighResolutionEnabled,
     changeFlipY,
+    changeTileFormat,
+    changeTileQuality,
     changeMapPreset,
   } = useContext(MapEditContext);
 
   const { windowWidth, isLandscape } = useWindow();
   const { mapLayerPresets } = useFeatureFlags();
+  // タイルの保存形式はAndroidのネイティブ側だけが扱う
+  const showTileFormat = Platform.OS === 'android' && canTranscodeTiles(map);
+  const tileFormat = map.tileFormat ?? 'original';
 
   const rightComponent = (
     <Button
@@ -166,6 +179,38 @@ export default function MapEditScreen() {
                 </>
               )}
 
+              {showTileFormat && (
+                <View style={styles.inputContainer}>
+                  <Text style={styles.inputLabel}>{t('MapEdit.label.tileFormat')}</Text>
+                  <ModalSelector
+                    data={TILE_FORMATS.map((f, index) => ({ key: index, label: t(f.labelKey), value: f.value }))}
+                    animationType={'none'}
+                    cancelText={t('common.cancel')}
+                    onChange={(option) => changeTileFormat(option.value)}
+                  >
+                    <View style={[styles.textInput, { flexDirection: 'row', alignItems: 'center' }]}>
+                      <Text style={{ flex: 1 }}>
+                        {t(TILE_FORMATS.find((f) => f.value === tileFormat)?.labelKey ?? TILE_FORMATS[0].labelKey)}
+                      </Text>
+                      <MaterialCommunityIcons name={'chevron-down'} size={24} color={COLOR.GRAY4} />
+                    </View>
+                  </ModalSelector>
+                </View>
+              )}
+
+              {showTileFormat && tileFormat === 'webp' && (
+                <Slider
+                  label={t('MapEdit.label.tileQuality')}
+                  labelColor={COLOR.GRAY4}
+                  width={windowWidth * (isLandscape ? 0.45 : 0.88)}
+                  initialValue={map.tileQuality ?? DEFAULT_TILE_QUALITY}
+                  step={5}
+                  minimumValue={50}
+                  maximumValue={100}
+                  onSlidingComplete={changeTileQuality}
+                />
+              )}
+
               {map.url?.includes('pmtiles') && (
                 <View style={{ width: '100%', alignItems: 'flex-start' }}>
                   <CheckBox
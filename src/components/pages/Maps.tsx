@@ -12,7 +12,8 @@ import { ScrollView } from 'react-native-gesture-handler';
 
 export default function MapScreen() {
   //console.log('render Maps');
-  const { progress, isLoading, isOffline, pressToggleOnline, gotoDownload } = useContext(MapsContext);
+  const { progress, isLoading, isImportCancelable, isOffline, pressToggleOnline, pressCancelImport, gotoDownload } =
+    useContext(MapsContext);
   const { width } = useWindowDimensions();
 
   const leftComponent =
@@ -52,7 +53,11 @@ export default function MapScreen() {
         leftComponent={leftComponent}
         rightComponent={rightComponent}
       />
-      <Loading visible={isLoading} text={t('common.processing') + '\n' + progress + '%'} />
+      <Loading
+        visible={isLoading}
+        text={t('common.processing') + '\n' + progress + '%'}
+        onCancel={isImportCancelable ? pressCancelImport : undefined}
+      />
       <View style={styles.tableContainer}>
         {Platform.OS === 'web' ? (
           <ScrollView horizontal={true} contentContainerStyle={{ flexGrow: 1 }}>
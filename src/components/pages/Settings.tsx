@@ -11,6 +11,7 @@ import { BottomSheetHeader } from '../molecules/BottomSheetHeader';
 export default function Settings() {
   const {
     isLoading,
+    compositeTileMaps,
     //pressMapListURLOpen,
     pressFileOpen,
     pressFileSave,
@@ -23,6 +24,7 @@ export default function Settings() {
     pressPDFSettingsOpen,
     pressGPSSettingsOpen,
     pressProximityAlertSettingsOpen,
+    pressToggleCompositeTileMaps,
   } = useContext(SettingsContext);
 
   const styles = StyleSheet.create({
@@ -62,6 +64,14 @@ export default function Settings() {
             onPress={pressProximityAlertSettingsOpen}
           />
         )}
+        {Platform.OS === 'android' && (
+          <TextButton
+            name={SETTINGS_BTN.COMPOSITE_TILE_MAPS}
+            text={`${t('Settings.composite_tile_maps.text')}: ${compositeTileMaps ? 'ON' : 'OFF'}`}
+            info={t('Settings.composite_tile_maps.info')}
+            onPress={pressToggleCompositeTileMaps}
+          />
+        )}
         <TextButton name={SETTINGS_BTN.CACHE_DELETE} text={t('Settings.cachedelete.text')} onPress={pressClearCache} />
 
         {/* 情報・ヘルプ */}
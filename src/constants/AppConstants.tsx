@@ -66,6 +66,8 @@ export const COLOR = {
 
 export const TILE_FOLDER = `${FileSystem.documentDirectory}tiles`;
 export const PHOTO_FOLDER = `${FileSystem.documentDirectory}projects`;
+// PDFをCOGで取り込んだときの地図フォルダ内のファイル名（MapCOGTileProvider.COG_FILE_NAMEと揃える）
+export const PDF_COG_FILE = 'map.tif';
 
 export const DEGREE_INTERVAL = 2;
 
@@ -394,6 +396,7 @@ export const SETTINGS_BTN = {
   APRI_CLEAR: 'restore',
   GPS_SETTINGS: 'crosshairs-gps',
   PROXIMITY_ALERT: 'bell-ring',
+  COMPOSITE_TILE_MAPS: 'layers-triple',
   MANUAL: 'help',
   TERMSOFUSE: 'book-open-variant',
   OSSLICENSE: 'star',
@@ -2658,6 +2658,8 @@ function HomeContainersInner({ navigation, route }: Props_Home) {
                                               ? 50
                                               : savingTrackStatus.phase === 'cleaning'
                                               ? 75
+                                              : savingTrackStatus.phase === 'elevation'
+                                              ? 80
                                               : savingTrackStatus.phase === 'saving'
                                               ? 90
                                               : 0
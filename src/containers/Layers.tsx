@@ -12,6 +12,7 @@ import { usePermission } from '../hooks/usePermission';
 import * as DocumentPicker from 'expo-document-picker';
 import { useGeoFile } from '../hooks/useGeoFile';
 import { getExt } from '../utils/General';
+import { isImportVectorAvailable } from 'react-native-gdalwarp';
 import { useBottomSheetNavigation } from '../contexts/BottomSheetNavigationContext';
 
 export default function LayerContainer() {
@@ -31,7 +32,7 @@ export default function LayerContainer() {
     onDragBegin,
   } = useLayers();
   const { isRunningProject } = usePermission();
-  const { importGeoFile } = useGeoFile();
+  const { importGeoFile, vectorImportStatus, cancelVectorImport } = useGeoFile();
   const { runTutrial } = useTutrial();
 
   const layersRef = React.useRef(layers);
@@ -62,7 +63,8 @@ export default function LayerContainer() {
         ext === 'kmz' ||
         ext === 'zip' ||
         ext === 'csv' ||
-        ext === 'json'
+        ext === 'json' ||
+        (ext === 'gpkg' && isImportVectorAvailable())
       )
     ) {
       await AlertAsync(t('hooks.message.wrongExtension'));
@@ -139,6 +141,8 @@ export default function LayerContainer() {
       pressLayerOrder,
       gotoLayerEditForAdd,
       pressImportLayerAndData,
+      vectorImportStatus,
+      pressCancelVectorImport: cancelVectorImport,
       gotoData,
       gotoLayerEdit,
       gotoColorStyle,
@@ -146,6 +150,7 @@ export default function LayerContainer() {
       onDragBegin,
     }),
     [
+      cancelVectorImport,
       changeActiveLayer,
       changeCustomLabel,
       changeExpand,
@@ -161,6 +166,7 @@ export default function LayerContainer() {
       pressImportLayerAndData,
       pressLayerOrder,
       updateLayersOrder,
+      vectorImportStatus,
     ]
   );
 
@@ -13,6 +13,7 @@ import { getExt } from '../utils/General';
 import * as FileSystem from 'expo-file-system/legacy';
 import { db } from '../utils/db';
 import { TILE_FOLDER } from '../constants/AppConstants';
+import { applyTileFormat } from '../utils/TileFormat';
 
 export default function MapEditContainer() {
   const { goBack: navigationGoBack } = useBottomSheetNavigation();
@@ -34,8 +35,11 @@ export default function MapEditContainer() {
     changeOverzoomThreshold,
     changeHighResolutionEnabled,
     changeFlipY,
+    changeTileFormat,
+    changeTileQuality,
     applyMapPreset,
     saveMap: saveMapToState,
+    redrawMap,
   } = useMapEdit(params!.targetMap);
 
   const { deleteMap, exportSingleMap, importStyleFile, getPmtilesBoundary } = useMaps();
@@ -85,7 +89,19 @@ export default function MapEditContainer() {
     }
 
     saveMapToState();
-  }, [getPmtilesBoundary, map, params?.targetMap, saveMapToState]);
+
+    // 保存形式を変えたら、保存済みのタイルも書き換える（ネイティブで進めるので待たない）。
+    // COGから切り出した地図はCOGを読まなくなるので、終わったら載せ直す
+    const previous = params?.targetMap;
+    if (
+      Platform.OS === 'android' &&
+      (previous?.tileFormat !== map.tileFormat || previous?.tileQuality !== map.tileQuality)
+    ) {
+      applyTileFormat(map)
+        .then(({ redraw }) => redraw && redrawMap(map.id))
+        .catch((e) => console.log(e));
+    }
+  }, [getPmtilesBoundary, map, params?.targetMap, redrawMap, saveMapToState]);
 
   const pressDeleteMap = useCallback(async () => {
     const ret = await ConfirmAsync(t('Maps.confirm.deleteMap'));
@@ -158,6 +174,8 @@ export default function MapEditContainer() {
         changeOverzoomThreshold,
         changeHighResolutionEnabled,
         changeFlipY,
+        changeTileFormat,
+        changeTileQuality,
         changeMapPreset: applyMapPreset,
       }}
     >
@@ -32,6 +32,8 @@ export default function MapContainer() {
   const { navigate, navigateToHome } = useBottomSheetNavigation();
   const {
     progress,
+    isImportCancelable,
+    cancelImport,
     maps,
     isOffline,
     filterdMaps,
@@ -284,6 +286,8 @@ export default function MapContainer() {
       value={{
         progress,
         isLoading,
+        isImportCancelable,
+        pressCancelImport: cancelImport,
         isOffline,
         maps,
         filterdMaps,
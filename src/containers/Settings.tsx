@@ -37,6 +37,7 @@ export default function SettingsContainers() {
     targetLayerIds: [],
     distanceThreshold: 10,
   });
+  const compositeTileMaps = useSelector((state: RootState) => state.settings.compositeTileMaps === true);
   const { clearEcorisMap, generateEcorisMapData, openEcorisMapFile, createExportSettings } = useEcorisMapFile();
   const { mapListURL, saveMapListURL, clearTileCache } = useMaps();
   const store = useStore<RootState>();
@@ -299,6 +300,10 @@ export default function SettingsContainers() {
     setIsProximityAlertSettingsOpen(false);
   }, []);
 
+  const pressToggleCompositeTileMaps = useCallback(() => {
+    dispatch(editSettingsAction({ compositeTileMaps: !compositeTileMaps }));
+  }, [compositeTileMaps, dispatch]);
+
   const pressGotoManual = useCallback(() => {
     const url = t('site.manual');
     Linking.openURL(url);
@@ -320,6 +325,7 @@ export default function SettingsContainers() {
     <SettingsContext.Provider
       value={{
         isLoading,
+        compositeTileMaps,
         pressMapListURLOpen,
         pressFileOpen,
         pressFileSave,
@@ -334,6 +340,7 @@ export default function SettingsContainers() {
         pressPDFSettingsOpen,
         pressGPSSettingsOpen,
         pressProximityAlertSettingsOpen,
+        pressToggleCompositeTileMaps,
       }}
     >
       <Settings />
@@ -1,5 +1,6 @@
 import { createContext } from 'react';
 import { LayerType } from '../types';
+import { VectorImportStatusType } from '../hooks/useGeoFile';
 
 interface LayersContextType {
   layers: LayerType[];
@@ -15,6 +16,8 @@ interface LayersContextType {
   gotoData: (layer: LayerType) => void;
   gotoLayerEditForAdd: () => void;
   pressImportLayerAndData: () => Promise<void>;
+  vectorImportStatus: VectorImportStatusType | undefined;
+  pressCancelVectorImport: () => void;
   updateLayersOrder: (data: LayerType[], from: number, to: number) => void;
   onDragBegin: (layer: LayerType) => void;
 }
@@ -1,5 +1,5 @@
 import { createContext } from 'react';
-import { TileMapType } from '../types';
+import { TileFormatType, TileMapType } from '../types';
 
 type MapEditContextType = {
   map: TileMapType;
@@ -22,6 +22,8 @@ type MapEditContextType = {
   changeOverzoomThreshold: (overzoomThreshold: number) => void;
   changeHighResolutionEnabled: (enabled: boolean) => void;
   changeFlipY: (flipY: boolean) => void;
+  changeTileFormat: (tileFormat: TileFormatType) => void;
+  changeTileQuality: (tileQuality: number) => void;
   changeMapPreset: (presetId: string) => void;
 };
 
@@ -46,5 +48,7 @@ export const MapEditContext = createContext<MapEditContextType>({
   changeOverzoomThreshold: () => {},
   changeHighResolutionEnabled: () => {},
   changeFlipY: () => {},
+  changeTileFormat: () => {},
+  changeTileQuality: () => {},
   changeMapPreset: () => {},
 });
\ No newline at end of file
@@ -5,6 +5,8 @@ import { TileMapType } from '../types';
 export interface MapsContextType {
   progress: string;
   isLoading: boolean;
+  isImportCancelable: boolean;
+  pressCancelImport: () => void;
   isOffline: boolean;
   maps: TileMapType[];
   filterdMaps: TileMapType[];
@@ -2,6 +2,7 @@ import { createContext } from 'react';
 
 interface SettingsContextType {
   isLoading: boolean;
+  compositeTileMaps: boolean;
   pressMapListURLOpen: () => void;
   pressFileOpen: () => void;
   pressFileSave: () => void;
@@ -16,6 +17,7 @@ interface SettingsContextType {
   pressPDFSettingsOpen: () => void;
   pressGPSSettingsOpen: () => void;
   pressProximityAlertSettingsOpen: () => void;
+  pressToggleCompositeTileMaps: () => void;
 }
 
 export const SettingsContext = createContext({} as SettingsContextType);
@@ -1,4 +1,4 @@
-import { useCallback, useMemo, useState } from 'react';
+import { useCallback, useMemo, useRef, useState } from 'react';
 import { shallowEqual, useDispatch, useSelector } from 'react-redux';
 import { ExportType, FeatureType, GeoJsonFeatureType, LayerType, PhotoType, RecordType } from '../types';
 
@@ -19,12 +19,39 @@ import { unzipFromUri } from '../utils/Zip';
 import { changeLayerId, isLayerType } from '../utils/Layer';
 import { FeatureCollection, GeoJsonProperties, Geometry } from 'geojson';
 import { decodeUri } from '../utils/File.web';
-import { importDictionary, exportDatabase } from '../utils/SQLite';
+import { importDictionary, exportDatabase, deleteDatabase } from '../utils/SQLite';
+import * as SQLite from 'expo-sqlite';
+import {
+  addImportProgressListener,
+  cancelConvert,
+  importVector,
+  isImportVectorAvailable,
+  VectorImportResult,
+} from 'react-native-gdalwarp';
+import {
+  VECTOR_IMPORT_DATABASE,
+  VECTOR_IMPORT_PAGE_SIZE,
+  VectorImportRow,
+  vectorGroupFeatureType,
+  vectorGroupFieldsGeoJson,
+  vectorGroupLayerName,
+  vectorRowsToGeoJson,
+} from '../utils/VectorImport';
 import { generateCSV, generateGeoJson, generateGPX, generateKML } from '../utils/Geometry';
 import { DuplicateLayerConfirmAsync } from '../components/molecules/AlertAsync';
 
+// ネイティブでのベクターファイルの取り込みの状況。cancelableの間はcancelVectorImportで中断できる
+export type VectorImportStatusType = {
+  layerName: string;
+  done: number;
+  total: number;
+  cancelable: boolean;
+};
+
 export type UseGeoFileReturnType = {
   isLoading: boolean;
+  vectorImportStatus: VectorImportStatusType | undefined;
+  cancelVectorImport: () => void;
   importGeoFile: (
     uri: string,
     name: string
@@ -67,6 +94,9 @@ export const useGeoFile = (): UseGeoFileReturnType => {
   const user = useSelector((state: RootState) => state.user, shallowEqual);
   const layers = useSelector((state: RootState) => state.layers, shallowEqual);
   const [isLoading, setIsLoading] = useState(false);
+  const [vectorImportStatus, setVectorImportStatus] = useState<VectorImportStatusType | undefined>(undefined);
+  // 取り込み中のファイルのパス。中断はこのパスで指定する
+  const vectorImportPathRef = useRef<string | undefined>(undefined);
   const dataUser = useMemo(
     () => (projectId === undefined ? { ...user, uid: undefined, displayName: null } : user),
     [projectId, user]
@@ -205,12 +235,83 @@ export const useGeoFile = (): UseGeoFileReturnType => {
     [importCsv]
   );
 
+  // OGRで読めるファイルをネイティブで作業用SQLiteに書き出し、ページ単位でレコードにする（Androidのみ）。
+  // ファイル全体の文字列やGeoJSONをJSに載せないので、大きなShapefileやGeoPackageでも取り込める
+  // 中断したときはfalseを返す（importGeoFileはメッセージを出さない）
+  const loadVector = useCallback(
+    async (path: string, name: string) => {
+      const dbUri = `${FileSystem.documentDirectory}SQLite/${VECTOR_IMPORT_DATABASE}`;
+      let result: VectorImportResult;
+      vectorImportPathRef.current = path;
+      setVectorImportStatus({ layerName: '', done: 0, total: 0, cancelable: true });
+      const removeProgressListener = addImportProgressListener((p) => {
+        if (p.uri !== path) return;
+        setVectorImportStatus({ layerName: p.layerName, done: p.done, total: p.total, cancelable: true });
+      });
+      try {
+        result = await importVector(path, dbUri);
+      } catch (e: any) {
+        if (e?.code === 'E_CONVERT_CANCELLED') return false;
+        throw e;
+      } finally {
+        removeProgressListener();
+        vectorImportPathRef.current = undefined;
+      }
+      // 作業用DBからレコードにする間は中断できない
+      setVectorImportStatus((status) => status && { ...status, cancelable: false });
+      const { groups } = result;
+      const db = await SQLite.openDatabaseAsync(VECTOR_IMPORT_DATABASE, { useNewConnection: true });
+      let imported = false;
+      try {
+        for (const group of groups) {
+          const featureType = vectorGroupFeatureType(group);
+          const layer = createLayerFromGeoJson(
+            vectorGroupFieldsGeoJson(group),
+            vectorGroupLayerName(group, groups, name),
+            featureType
+          );
+          let layerAdded = false;
+          let lastId = 0;
+          for (;;) {
+            const rows = await db.getAllAsync<VectorImportRow>(
+              'SELECT id, geometry, properties FROM features WHERE layer = ? AND geometry_type = ? AND id > ? ORDER BY id LIMIT ?',
+              [group.layer, group.geometryType, lastId, VECTOR_IMPORT_PAGE_SIZE]
+            );
+            if (rows.length === 0) break;
+            lastId = rows[rows.length - 1].id;
+            const recordSet = await runAsync(() =>
+              geoJson2Data(vectorRowsToGeoJson(rows), layer, featureType, dataUser.uid, dataUser.displayName)
+            );
+            if (recordSet === undefined || recordSet.length === 0) continue;
+            if (!layerAdded) {
+              dispatch(addLayerAction(layer));
+              layerAdded = true;
+            }
+            dispatch(addDataAction([{ layerId: layer.id, userId: dataUser.uid, data: recordSet }]));
+          }
+          imported = imported || layerAdded;
+        }
+      } finally {
+        await db.closeAsync();
+        await deleteDatabase(VECTOR_IMPORT_DATABASE);
+      }
+      if (!imported) throw new Error('no features');
+      return true;
+    },
+    [dispatch, dataUser.uid, dataUser.displayName]
+  );
+
   const loadZip = useCallback(
     async (uri: string, name: string) => {
       const loaded = await unzipFromUri(uri);
       //console.log(loaded);
       const files = Object.keys(loaded.files);
       const jsonFile = files.find((f) => getExt(f) === 'json' && !f.startsWith('__MACOS/'));
+      // レイヤ設定の無いzipはShapefileとしてネイティブで取り込む
+      const shpFile = files.find((f) => getExt(f)?.toLowerCase() === 'shp' && !f.startsWith('__MACOS/'));
+      if (jsonFile === undefined && shpFile !== undefined && isImportVectorAvailable()) {
+        return await loadVector(`/vsizip/${decodeURIComponent(uri.replace('file://', ''))}/${shpFile}`, name);
+      }
       if (jsonFile === undefined) throw new Error('invalid zip file');
       const jsonDecompressed = await loaded.files[jsonFile].async('text');
       //有効なjsonかチェック
@@ -342,7 +443,7 @@ export const useGeoFile = (): UseGeoFileReturnType => {
       }
       return true;
     },
-    [dispatch, importCsv, importGeoJson, layers, dataUser.uid, dataUser.displayName]
+    [dispatch, importCsv, importGeoJson, layers, dataUser.uid, dataUser.displayName, loadVector]
   );
 
   const loadJson = useCallback(
@@ -389,14 +490,23 @@ export const useGeoFile = (): UseGeoFileReturnType => {
           result = await loadGeojson(uri, name);
           break;
         }
+        case 'gpkg': {
+          if (!isImportVectorAvailable()) throw new Error('invalid extension');
+          result = await loadVector(decodeURIComponent(uri.replace('file://', '')), name);
+          break;
+        }
         default:
           throw new Error('invalid extension');
       }
       return result;
     },
-    [loadCsv, loadGeojson, loadGpx, loadJson, loadKml, loadKmz, loadZip]
+    [loadCsv, loadGeojson, loadGpx, loadJson, loadKml, loadKmz, loadVector, loadZip]
   );
 
+  const cancelVectorImport = useCallback(() => {
+    if (vectorImportPathRef.current !== undefined) cancelConvert(vectorImportPathRef.current);
+  }, []);
+
   const importGeoFile = useCallback(
     async (uri: string, name: string) => {
       try {
@@ -414,6 +524,7 @@ export const useGeoFile = (): UseGeoFileReturnType => {
         return { isOK: false, message: e.message + '\n' + t('hooks.message.failReceiveFile') };
       } finally {
         setIsLoading(false);
+        setVectorImportStatus(undefined);
       }
     },
     [loadFile]
@@ -525,6 +636,8 @@ export const useGeoFile = (): UseGeoFileReturnType => {
 
   return {
     isLoading,
+    vectorImportStatus,
+    cancelVectorImport,
     importGeoFile,
     generateExportGeoData,
   } as const;
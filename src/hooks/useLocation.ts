@@ -37,6 +37,7 @@ import { Linking } from 'react-native';
 import { isLocationType } from '../utils/General';
 import { useProximityAlert } from './useProximityAlert';
 import { STALE_LOCATION_AGE_MS } from '../constants/AppConstants';
+import { getElevationProfile, summarizeProfile } from '../utils/Elevation';
 
 const openSettings = () => {
   Linking.openSettings().catch(() => {
@@ -81,6 +82,8 @@ const makeNotification = (text: string): NotificationConfig => ({
 
 // 軌跡ライン（trailing polyline）の再描画を約1秒ごとにスロットルするための間隔
 const TRACK_META_UPDATE_INTERVAL_MS = 1000;
+// 累積標高で数えない上下[m]。標高タイルの細かな凹凸で累積標高が膨らまないようにする
+const TRACK_ELEVATION_THRESHOLD = 5;
 
 // iOSのCLLocationManagerは位置サービス開始時にキャッシュ済みの古い位置を即配信する。
 // transistorsoft/react-native-background-geolocation の getCurrentPosition はこれを
@@ -152,7 +155,7 @@ export type UseLocationReturnType = {
   trackMetadata: TrackMetadataType;
   savingTrackStatus: {
     isSaving: boolean;
-    phase: '' | 'merging' | 'filtering' | 'cleaning' | 'saving';
+    phase: '' | 'merging' | 'filtering' | 'cleaning' | 'elevation' | 'saving';
     message: string;
   };
   toggleHeadingUp: (headingUp_: boolean) => Promise<void>;
@@ -205,6 +208,8 @@ export const useLocation = (mapViewRef: React.RefObject<MapView | MapRef | null>
   const gpsStateRef = useRef<LocationStateType>('off');
   const locationSubscription = useRef<BackgroundSubscription | null>(null);
   const gpsAccuracy = useSelector((state: RootState) => state.settings.gpsAccuracy);
+  const tileMaps = useSelector((state: RootState) => state.tileMaps);
+  const isOffline = useSelector((state: RootState) => state.settings.isOffline, shallowEqual);
   const appState = useRef(RNAppState.currentState);
   // トラックメタデータ(=軌跡ライン再描画)の更新を約1秒にスロットルする。
   // 現在地マーカーは setCurrentLocation で毎点更新するため滑らかさは維持される。
@@ -224,7 +229,7 @@ export const useLocation = (mapViewRef: React.RefObject<MapView | MapRef | null>
   const [trackingState, setTrackingState] = useState<TrackingStateType>('off');
   const [savingTrackStatus, setSavingTrackStatus] = useState<{
     isSaving: boolean;
-    phase: '' | 'merging' | 'filtering' | 'cleaning' | 'saving';
+    phase: '' | 'merging' | 'filtering' | 'cleaning' | 'elevation' | 'saving';
     message: string;
   }>({ isSaving: false, phase: '', message: '' });
 
@@ -898,6 +903,27 @@ export const useLocation = (mapViewRef: React.RefObject<MapView | MapRef | null>
     setCurrentLocation(latestCoords);
   }, [mapViewRef]);
 
+  // トラックの標高の要約。Androidは標高タイル（オフライン時はキャッシュ済みのもの）から求める
+  const getTrackElevationText = useCallback(
+    async (points: LocationType[]) => {
+      try {
+        const profile = await getElevationProfile(tileMaps, points, undefined, { offline: isOffline });
+        const summary = summarizeProfile(profile.elevations, TRACK_ELEVATION_THRESHOLD);
+        if (summary === null) return '';
+        return t('hooks.message.trackElevation', {
+          min: Math.round(summary.min),
+          max: Math.round(summary.max),
+          ascent: Math.round(summary.ascent),
+          descent: Math.round(summary.descent),
+        });
+      } catch (e) {
+        console.log(e);
+        return '';
+      }
+    },
+    [isOffline, tileMaps]
+  );
+
   // トラックログをトラック用のレコードに追加する
   const saveTrackLog = useCallback(async () => {
     try {
@@ -934,17 +960,22 @@ export const useLocation = (mapViewRef: React.RefObject<MapView | MapRef | null>
         return { isOK: true, message: warningMessage || t('hooks.message.insufficientTrackLog') };
       }
 
-      setSavingTrackStatus({ isSaving: true, phase: 'saving', message: t('hooks.progress.savingTrackLog') });
-
       // 全トラックの総距離を計算
       const totalDistance = getLineLength(validPoints);
       const distanceText = totalDistance > 0 ? `${totalDistance.toFixed(2)} km` : '';
 
+      // 標高の断面から最低・最高標高と累積標高を求めて距離に添える。標高が取れなければ距離だけにする
+      setSavingTrackStatus({ isSaving: true, phase: 'elevation', message: t('hooks.progress.elevationTrackLog') });
+      const elevationText = await getTrackElevationText(validPoints);
+      const summaryText = [distanceText, elevationText].filter((text) => text !== '').join(' ');
+
+      setSavingTrackStatus({ isSaving: true, phase: 'saving', message: t('hooks.progress.savingTrackLog') });
+
       // レコードに追加（Redux更新も重い可能性）
       // 注意: cleanupLineは getAllTrackPoints で一括適用済み
       const ret = await new Promise<ReturnType<typeof addTrackRecord>>((resolve) => {
         setTimeout(() => {
-          const result = addTrackRecord(validPoints, { distance: distanceText });
+          const result = addTrackRecord(validPoints, { distance: summaryText });
           resolve(result);
         }, 0);
       });
@@ -973,7 +1004,7 @@ export const useLocation = (mapViewRef: React.RefObject<MapView | MapRef | null>
     } finally {
       setSavingTrackStatus({ isSaving: false, phase: '', message: '' });
     }
-  }, [addTrackRecord, setLocationStale]);
+  }, [addTrackRecord, getTrackElevationText, setLocationStale]);
 
   const checkUnsavedTrackLog = useCallback(async () => {
     // メタデータからデータの有無を確認
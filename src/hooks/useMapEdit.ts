@@ -1,7 +1,7 @@
 import { useCallback, useEffect, useState } from 'react';
-import { TileMapType } from '../types';
+import { TileFormatType, TileMapType } from '../types';
 import { useDispatch, useSelector } from 'react-redux';
-import { RootState } from '../store';
+import { RootState, AppDispatch } from '../store';
 import { addTileMapAction, deleteTileMapAction, updateTileMapAction } from '../modules/tileMaps';
 import { editSettingsAction } from '../modules/settings';
 import { ulid } from 'ulid';
@@ -9,7 +9,7 @@ import { MAP_PRESETS } from '../constants/Presets';
 import { createTileMapFromPreset } from '../utils/Preset';
 
 export const useMapEdit = (targetMap?: TileMapType | null) => {
-  const dispatch = useDispatch();
+  const dispatch = useDispatch<AppDispatch>();
   const maps = useSelector((state: RootState) => state.tileMaps);
   
   const defaultMap: TileMapType = {
@@ -103,6 +103,16 @@ export const useMapEdit = (targetMap?: TileMapType | null) => {
     setIsEdited(true);
   }, []);
 
+  const changeTileFormat = useCallback((tileFormat: TileFormatType) => {
+    setMap((prev) => ({ ...prev, tileFormat }));
+    setIsEdited(true);
+  }, []);
+
+  const changeTileQuality = useCallback((tileQuality: number) => {
+    setMap((prev) => ({ ...prev, tileQuality }));
+    setIsEdited(true);
+  }, []);
+
   const applyMapPreset = useCallback((presetId: string) => {
     const preset = MAP_PRESETS.find((p) => p.presetId === presetId);
     if (preset === undefined) return;
@@ -124,6 +134,18 @@ export const useMapEdit = (targetMap?: TileMapType | null) => {
     dispatch(deleteTileMapAction(map));
   }, [dispatch, map]);
 
+  // 地図を載せ直す（保存済みのタイルの読み方が変わったとき）。保存後に非同期で呼ぶので最新の地図を使う
+  const redrawMap = useCallback(
+    (mapId: string) => {
+      dispatch((thunkDispatch, getState) => {
+        const currentMap = (getState() as RootState).tileMaps.find((m: TileMapType) => m.id === mapId);
+        if (!currentMap) return;
+        thunkDispatch(updateTileMapAction({ ...currentMap, redraw: !currentMap.redraw }));
+      });
+    },
+    [dispatch]
+  );
+
   return {
     map,
     isEdited,
@@ -140,8 +162,11 @@ export const useMapEdit = (targetMap?: TileMapType | null) => {
     changeOverzoomThreshold,
     changeHighResolutionEnabled,
     changeFlipY,
+    changeTileFormat,
+    changeTileQuality,
     applyMapPreset,
     saveMap,
     deleteMap,
+    redrawMap,
   };
 };
\ No newline at end of file
@@ -1,7 +1,7 @@
-import { useCallback, useMemo, useState } from 'react';
+import { useCallback, useMemo, useRef, useState } from 'react';
 import * as FileSystem from 'expo-file-system/legacy';
 import { ulid } from 'ulid';
-import { TILE_FOLDER } from '../constants/AppConstants';
+import { PDF_COG_FILE, TILE_FOLDER } from '../constants/AppConstants';
 import { boundaryType, TileMapItemType, TileMapType } from '../types';
 import { Platform } from 'react-native';
 import { shallowEqual, useDispatch, useSelector } from 'react-redux';
@@ -14,7 +14,7 @@ import { t } from '../i18n/config';
 import { AlertAsync } from '../components/molecules/AlertAsync';
 import { decodeUri } from '../utils/File.web';
 import { blobToBase64 } from '../utils/blob';
-import { convert, warpedFileType } from 'react-native-gdalwarp';
+import { addConvertProgressListener, cancelConvert, convert, warpedFileType } from 'react-native-gdalwarp';
 import { webMercatorToLatLon } from '../utils/Coords';
 import { Buffer } from 'buffer';
 import { unlink, exportFileFromData } from '../utils/File';
@@ -22,10 +22,12 @@ import { withTileSignature } from '../utils/TileSignature';
 import { convertPDFToGeoTiff } from '../utils/PDF';
 import { db } from '../utils/db';
 import { generateTilesFromPDF } from '../utils/PDF';
+import { tileFormatOptions } from '../utils/TileFormat';
 import * as pmtiles from 'pmtiles';
 import * as projectStorage from '../lib/firebase/storage';
 import dayjs from 'dayjs';
 import sanitize from 'sanitize-filename';
+import { forgetTiles } from './useTiles';
 
 const PDF_PROGRESS = {
   idle: 0,
@@ -40,6 +42,9 @@ const formatProgress = (value: number) => Math.round(value).toString();
 
 export type UseMapsReturnType = {
   progress: string;
+  // PDFのワープ中（Android）。この間はcancelImportで中断できる
+  isImportCancelable: boolean;
+  cancelImport: () => void;
   mapListURL: string;
   mapList: TileMapItemType[];
   maps: TileMapType[];
@@ -124,6 +129,9 @@ export const useMaps = (): UseMapsReturnType => {
   const [editedMap, setEditedMap] = useState({} as TileMapType);
   const [isMapEditorOpen, setMapEditorOpen] = useState(false);
   const [progress, setProgress] = useState(formatProgress(PDF_PROGRESS.idle));
+  const [isImportCancelable, setIsImportCancelable] = useState(false);
+  // ワープ中のPDFのパス。中断はこのパスで指定する
+  const convertingPathRef = useRef<string | undefined>(undefined);
   const mapList = useSelector((state: RootState) => state.settings.mapList, shallowEqual);
 
   const filterdMaps = useMemo(
@@ -574,7 +582,12 @@ export const useMaps = (): UseMapsReturnType => {
         if (index === -1) {
           thunkDispatch(addTileMapAction(newTileMap));
         } else {
+          const oldTileMap = currentMaps[index];
           thunkDispatch(updateTileMapAction(newTileMap));
+          //URLやスタイルが変わったら、ネイティブが開いているアーカイブや読み込み済みのベクタータイルを捨てる
+          if (oldTileMap.url !== newTileMap.url || oldTileMap.styleURL !== newTileMap.styleURL) {
+            forgetTiles(newTileMap).catch((e) => console.log(e));
+          }
         }
       });
       setMapEditorOpen(false);
@@ -690,13 +703,45 @@ export const useMaps = (): UseMapsReturnType => {
   const importPdfFile = useCallback(
     async (uri: string, name: string, id?: string) => {
       let outputFiles: warpedFileType[] = [];
+      // 置き換える地図の保存形式を引き継ぐ
+      const previousMap = id !== undefined ? maps.find((m) => m.id === id) : undefined;
+      const tileFormat = previousMap ? tileFormatOptions(previousMap) : undefined;
+      // Androidはタイルを事前に切らず、COG1ファイルを地図側（MapCOGTileProvider）が読む。
+      // 保存形式の指定がある地図はその形式のタイルが要るので、ネイティブでタイルに切る
+      const useCog = Platform.OS === 'android' && tileFormat === undefined;
       if (Platform.OS === 'web') {
         outputFiles = await convertPDFToGeoTiff(uri);
       } else {
-        const result = await convert(uri.replace('file://', '')).catch((e) => {
-          console.error('Error processing PDF:', e);
-          return { outputFiles: [] };
+        // ワープの進捗はダウンロード完了から変換開始までの区間に割り当てる
+        const sourcePath = uri.replace('file://', '');
+        const removeProgressListener = addConvertProgressListener((p) => {
+          // 他の変換（別の地図の読み込みなど）の進捗は無視する
+          if (p.uri !== sourcePath) return;
+          const ratio = (p.completedPages + (p.completedPages < p.pageCount ? p.pageProgress : 0)) / p.pageCount;
+          const range = PDF_PROGRESS.convertStart - PDF_PROGRESS.downloadEnd;
+          setProgress(formatProgress(PDF_PROGRESS.downloadEnd + Math.min(1, ratio) * range));
         });
+        let cancelled = false;
+        convertingPathRef.current = sourcePath;
+        setIsImportCancelable(Platform.OS === 'android');
+        const result = await convert(sourcePath, useCog ? 'COG' : 'PNG')
+          .catch((e) => {
+            if (e?.code === 'E_CONVERT_CANCELLED') {
+              cancelled = true;
+            } else {
+              console.error('Error processing PDF:', e);
+            }
+            return { outputFiles: [] };
+          })
+          .finally(() => {
+            removeProgressListener();
+            convertingPathRef.current = undefined;
+            setIsImportCancelable(false);
+          });
+        if (cancelled) {
+          setProgress(formatProgress(PDF_PROGRESS.idle));
+          return { isOK: false, message: t('hooks.message.importCancelled') };
+        }
         outputFiles = result.outputFiles;
       }
       if (outputFiles.length === 0) {
@@ -744,16 +789,31 @@ export const useMaps = (): UseMapsReturnType => {
             PDF_PROGRESS.convertStart + ((page - 1) / totalPages) * (PDF_PROGRESS.convertEnd - PDF_PROGRESS.convertStart);
           const pageEnd =
             PDF_PROGRESS.convertStart + (page / totalPages) * (PDF_PROGRESS.convertEnd - PDF_PROGRESS.convertStart);
-          await generateTilesFromPDF(
-            pdfImage,
-            outputFile,
-            mapId,
-            tileSize,
-            minimumZ,
-            baseZoomLevel,
-            coordPerPixel,
-            (ratio) => setProgress(formatProgress(pageStart + ratio * (pageEnd - pageStart)))
-          );
+          if (useCog) {
+            await FileSystem.makeDirectoryAsync(`${TILE_FOLDER}/${mapId}`, { intermediates: true });
+            await FileSystem.deleteAsync(`${TILE_FOLDER}/${mapId}/${PDF_COG_FILE}`, { idempotent: true });
+            await FileSystem.moveAsync({ from: pdfImage, to: `${TILE_FOLDER}/${mapId}/${PDF_COG_FILE}` });
+          } else {
+            try {
+              await generateTilesFromPDF(
+                pdfImage,
+                outputFile,
+                mapId,
+                tileSize,
+                minimumZ,
+                baseZoomLevel,
+                coordPerPixel,
+                (ratio) => setProgress(formatProgress(pageStart + ratio * (pageEnd - pageStart))),
+                totalPages === 1 ? tileFormat : undefined
+              );
+            } catch (e) {
+              console.error('Error generating PDF tiles:', e);
+              //残りのページのワープ済み画像は使わないので消す
+              outputFiles.slice(page - 1).forEach((file) => unlink('file://' + file.uri));
+              setProgress(formatProgress(PDF_PROGRESS.idle));
+              return { isOK: false, message: t('hooks.message.failReceiveFile') };
+            }
+          }
           //${TILE_FOLDER}/${mapId}/boundary.jsonに保存.
           const boundaryUri = `${TILE_FOLDER}/${mapId}/boundary.json`;
           await FileSystem.writeAsStringAsync(boundaryUri, boundaryJson);
@@ -793,6 +853,8 @@ export const useMaps = (): UseMapsReturnType => {
             tileMap.attribution = oldTileMap.attribution;
             tileMap.transparency = oldTileMap.transparency;
             tileMap.encryptKey = oldTileMap.encryptKey;
+            tileMap.tileFormat = oldTileMap.tileFormat;
+            tileMap.tileQuality = oldTileMap.tileQuality;
             tileMap.redraw = !oldTileMap.redraw;
             thunkDispatch(updateTileMapAction(tileMap));
           });
@@ -806,9 +868,13 @@ export const useMaps = (): UseMapsReturnType => {
 
       return { isOK: true, message: t('hooks.message.receiveFile') };
     },
-    [dispatch]
+    [dispatch, maps]
   );
 
+  const cancelImport = useCallback(() => {
+    if (convertingPathRef.current !== undefined) cancelConvert(convertingPathRef.current);
+  }, []);
+
   const getPmtilesBoundary = useCallback(
     async (url: string): Promise<{ header: pmtiles.Header | undefined; boundary: boundaryType | undefined }> => {
       try {
@@ -1005,6 +1071,8 @@ export const useMaps = (): UseMapsReturnType => {
 
   return {
     progress,
+    isImportCancelable,
+    cancelImport,
     mapListURL,
     mapList,
     maps,
@@ -7,6 +7,8 @@ import { editSettingsAction } from '../modules/settings';
 import { tileGridForRegion } from '../utils/Tile';
 import { toDemUrl } from '../utils/terrainShading';
 import { withTileSignature } from '../utils/TileSignature';
+import { applyTileFormat, writeTileFormatFile } from '../utils/TileFormat';
+import { COMPOSITE_TILE_FOLDER } from '../utils/CompositeTile';
 import { AlertAsync, ResumeDownloadConfirmAsync, StopDownloadConfirmAsync } from '../components/molecules/AlertAsync';
 import { TileMapType, TileRegionType } from '../types';
 import { TILE_FOLDER } from '../constants/AppConstants';
@@ -25,6 +27,14 @@ import {
   removeIncompleteRegions,
   toCompletedRegion,
 } from '../utils/tileDownloadHelpers';
+import {
+  addTileArchiveProgressListener,
+  compactTileFolder,
+  extractPMTilesRegion,
+  forgetTileFolder,
+  isTileArchiveAvailable,
+  TileArchiveBounds,
+} from '../utils/TileArchive';
 
 export type UseTilesReturnType = {
   isDownloading: boolean;
@@ -44,6 +54,75 @@ export type UseTilesReturnType = {
   clearTiles: (tileMap_: TileMapType) => Promise<void>;
 };
 
+// AndroidはPMTilesの地図の範囲をネイティブで地図フォルダ直下の.pmtilesに抜き出す。
+// タイルは圧縮されたまま写し、タイルごとのファイルは作らない。オフライン時はPMTileがそのアーカイブから読む
+const canExtractPMTiles = () => Platform.OS === 'android' && isTileArchiveAvailable();
+
+const extractRegionArchive = async (
+  tileMap: TileMapType,
+  signedUrl: string,
+  regionId: string,
+  bounds: TileArchiveBounds,
+  minZoom: number,
+  maxZoom: number,
+  onProgress: (ratio: number) => void
+): Promise<boolean> => {
+  const jobId = `extract-${regionId}`;
+  const removeProgressListener = addTileArchiveProgressListener((p) => {
+    if (p.jobId === jobId && p.total > 0) onProgress(p.done / p.total);
+  });
+  try {
+    await FileSystem.makeDirectoryAsync(`${TILE_FOLDER}/${tileMap.id}`, { intermediates: true });
+    await extractPMTilesRegion(
+      jobId,
+      signedUrl.replace('pmtiles://', ''),
+      `${TILE_FOLDER}/${tileMap.id}/region-${regionId}.pmtiles`,
+      bounds,
+      minZoom,
+      maxZoom
+    );
+    return true;
+  } catch (e) {
+    console.log(e);
+    return false;
+  } finally {
+    removeProgressListener();
+  }
+};
+
+// 地図フォルダのタイルが変わったことをネイティブに伝える。開いているアーカイブを閉じ、フォルダの世代を進めるので、
+// 合成した絵（utils/CompositeTile）のキーも変わる。古い絵はもう使わないので合成フォルダごと消す。
+// 地図のURLを編集したとき（hooks/useMapsのsaveMap）も呼ぶ
+export const forgetTiles = async (tileMap: TileMapType) => {
+  if (Platform.OS !== 'android') return;
+  await FileSystem.deleteAsync(COMPOSITE_TILE_FOLDER, { idempotent: true });
+  if (isTileArchiveAvailable()) await forgetTileFolder(`${TILE_FOLDER}/${tileMap.id}`);
+};
+
+// ダウンロードを終えたラスタの地図の後処理。保存形式（utils/TileFormat）の指定があればタイルを書き換え、
+// AndroidはそのあとでTileFolderCompactorが終えた領域のz/x/yのタイルを地図フォルダ直下のtiles.pmtilesにまとめる
+// （数万のファイルが1つになり、MapTileProviderはz/x/yに無いタイルをそこから読む）。
+// まとめるのは終えた領域の範囲だけなので、ダウンロード途中の領域のタイルはz/x/yのまま残り、再開時に読み直さずに済む。
+// どちらもネイティブの同じスレッドで順に動き、その間も元のタイルは読めるので待たない。
+// まとめたタイルは後から保存形式を変えても書き換わらない（タイルを消す（clearTiles）とアーカイブも消える）。
+// 最後に、失敗したときも含めて、この地図を使った合成の絵を捨てる
+const finishRasterDownload = (tileMap: TileMapType, bounds: TileArchiveBounds, minZoom: number, maxZoom: number) =>
+  applyTileFormat(tileMap)
+    .then(() => {
+      if (Platform.OS !== 'android' || !isTileArchiveAvailable()) return;
+      return compactTileFolder(
+        `compact-${tileMap.id}`,
+        `${TILE_FOLDER}/${tileMap.id}`,
+        bounds,
+        minZoom,
+        maxZoom,
+        true
+      );
+    })
+    .catch((e) => console.log(e))
+    .then(() => forgetTiles(tileMap))
+    .catch((e) => console.log(e));
+
 export const useTiles = (
   tileMap: TileMapType | undefined,
   selectedTileMapIds?: string[],
@@ -271,6 +350,26 @@ export const useTiles = (
 
       const { minZoom, maxZoom } = getZoomRange(tileType, tileMap, zoom);
 
+      if (tileType === 'pmtiles' && canExtractPMTiles()) {
+        // ネイティブの抜き出しは途中で止められないので、終わるまで待つ
+        const isOK = await extractRegionArchive(
+          tileMap,
+          withTileSignature(tileMap.url, tileSignatures),
+          tileRegion.id,
+          downloadRegion,
+          minZoom,
+          maxZoom,
+          (ratio) => setProgress((ratio * 100).toFixed())
+        );
+        updatedTileRegions = isOK
+          ? updatedTileRegions.map((r) => (r.id === tileRegion.id ? toCompletedRegion(r) : r))
+          : removeIncompleteRegions(updatedTileRegions, [tileRegion.id]);
+        dispatch(editSettingsAction({ tileRegions: updatedTileRegions }));
+        setIsDownloading(false);
+        await AlertAsync(t(isOK ? 'hooks.alert.completeDownload' : 'hooks.alert.failDownload'));
+        return;
+      }
+
       const tiles = tileGridForRegion(downloadRegion, minZoom, maxZoom);
 
       const BATCH_SIZE = 10;
@@ -413,6 +512,7 @@ export const useTiles = (
         }
       }
       await Promise.all(batchDownload);
+      if (tileType === 'png') finishRasterDownload(tileMap, downloadRegion, minZoom, maxZoom);
 
       // 完了: 未完了マーカー（status/zoom）を外して保存する
       updatedTileRegions = updatedTileRegions.map((r) => (r.id === tileRegion.id ? toCompletedRegion(r) : r));
@@ -434,6 +534,10 @@ export const useTiles = (
       try {
         // idempotent: フォルダが存在しない場合（未ダウンロード）はエラーにしない
         await FileSystem.deleteAsync(`${TILE_FOLDER}/${tileMap_.id}/`, { idempotent: true });
+        // 消したアーカイブや合成した絵をネイティブが使い続けると古いタイルを返す
+        await forgetTiles(tileMap_);
+        // 保存形式の指定はタイルと一緒に消えるので書き直す（以降のキャッシュも同じ形式にする）
+        if (Platform.OS === 'android') await writeTileFormatFile(tileMap_);
         const newTileRegions = tileRegions.filter((tileRegion) => tileRegion.tileMapId !== tileMap_.id);
         dispatch(editSettingsAction({ tileRegions: newTileRegions }));
         setTileSize('0');
@@ -574,6 +678,36 @@ export const useTiles = (
 
         const { minZoom, maxZoom } = getZoomRange(tileType, currentTileMap, tileRegion.zoom ?? zoom);
 
+        if (tileType === 'pmtiles' && canExtractPMTiles()) {
+          // 再開時も保存された領域を同じファイルに抜き出し直す
+          const isOK = await extractRegionArchive(
+            currentTileMap,
+            withTileSignature(currentTileMap.url, tileSignatures),
+            tileRegion.id,
+            boundsFromCoords(tileRegion.coords),
+            minZoom,
+            maxZoom,
+            (ratio) =>
+              setProgress(
+                t('hooks.progress.downloadingMap', {
+                  current: i + 1,
+                  total: totalMaps,
+                  name: currentTileMap.name,
+                  progress: (ratio * 100).toFixed(),
+                })
+              )
+          );
+          if (isOK) {
+            updatedTileRegions = updatedTileRegions.map((r) => (r.id === tileRegion.id ? toCompletedRegion(r) : r));
+            totalCompleted++;
+          } else {
+            updatedTileRegions = removeIncompleteRegions(updatedTileRegions, [tileRegion.id]);
+            errorMaps.push(currentTileMap.name);
+          }
+          dispatch(editSettingsAction({ tileRegions: updatedTileRegions }));
+          continue;
+        }
+
         // 再開時は現在の地図表示ではなく、保存された領域からタイル集合を復元する
         const tiles = tileGridForRegion(boundsFromCoords(tileRegion.coords), minZoom, maxZoom);
         // 再開時のみ、保存済みタイルをスキップして残りだけダウンロードする
@@ -728,6 +862,9 @@ export const useTiles = (
           }
         }
         await Promise.all(batchDownload);
+        if (tileType === 'png') {
+          finishRasterDownload(currentTileMap, boundsFromCoords(tileRegion.coords), minZoom, maxZoom);
+        }
 
         // エラー率が80%を超える場合のみ警告（404などの正常な欠損タイルを考慮）
         if (tilesToDownload.length > 0 && (errorCount / tilesToDownload.length) * 100 > 80) {
@@ -4,6 +4,12 @@ import { fetchVectorTileInfo } from '../utils/VectorTile';
 import { RootState } from '../store';
 import { useSelector } from 'react-redux';
 import { Position } from 'geojson';
+import { TileMapType } from '../types';
+
+// 地図に表示しているベクタータイルの最大ズーム（components/pages/HomeのPMTileのmaximumNativeZと同じ）。
+// これより上のズームのタイルは無く、ネイティブは親のタイルを拡大して描いている
+const vectorTileMaximumNativeZ = (tileMap: TileMapType, isOffline: boolean) =>
+  isOffline && tileMap.overzoomThreshold > 18 ? 18 : tileMap.overzoomThreshold;
 
 export type UseVectorTileReturnType = {
   vectorTileInfo:
@@ -31,6 +37,7 @@ export type UseVectorTileReturnType = {
 
 export const useVectorTile = (): UseVectorTileReturnType => {
   const tileMaps = useSelector((state: RootState) => state.tileMaps);
+  const isOffline = useSelector((state: RootState) => state.settings.isOffline);
   const [vectorTileInfo, setVectorTileInfo] = useState<
     | {
         position: Position;
@@ -48,15 +55,20 @@ export const useVectorTile = (): UseVectorTileReturnType => {
       const properties: { [key: string]: any }[] = [];
       const maxZoomLevelsToCheck = 4; // 最大4レベル下まで検索
       
+      // 地図ごとに最後に検索したズーム。最大ズームで頭打ちにしたときに同じタイルを何度も検索しない
+      const queriedZoom: { [id: string]: number } = {};
+
       // 現在のズームレベルから順に低いズームレベルまで検索
       for (let currentZoom = zoom; currentZoom >= Math.max(zoom - maxZoomLevelsToCheck, 1); currentZoom--) {
-        const tileX = lonToTileX(latlon[0], currentZoom);
-        const tileY = latToTileY(latlon[1], currentZoom);
-        
         for (const tileMap of tileMaps) {
           if (!(tileMap.visible && (tileMap.url.includes('pmtiles') || tileMap.url.includes('.pbf')))) continue;
-          
-          const propertyList = await fetchVectorTileInfo(tileMap.id, latlon, { x: tileX, y: tileY, z: currentZoom });
+
+          const z = Math.min(currentZoom, vectorTileMaximumNativeZ(tileMap, isOffline));
+          if (queriedZoom[tileMap.id] === z) continue;
+          queriedZoom[tileMap.id] = z;
+          const tileX = lonToTileX(latlon[0], z);
+          const tileY = latToTileY(latlon[1], z);
+          const propertyList = await fetchVectorTileInfo(tileMap.id, latlon, { x: tileX, y: tileY, z });
           properties.push(...propertyList);
         }
         
@@ -68,7 +80,7 @@ export const useVectorTile = (): UseVectorTileReturnType => {
       
       return properties;
     },
-    [tileMaps]
+    [isOffline, tileMaps]
   );
 
   const openVectorTileInfo = useCallback((properties: { [key: string]: any }[], position: Position) => {
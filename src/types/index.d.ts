@@ -281,6 +281,9 @@ export interface TileMapItemType {
   expanded?: boolean;
 }
 
+// ラスタタイルを保存するときの形式（Androidのみ）。undefinedは'original'（受け取ったまま）
+export type TileFormatType = 'original' | 'webp' | 'webp_lossless';
+
 export interface TileMapType extends TileMapItemType {
   id: string;
   maptype: MapType;
@@ -288,6 +291,9 @@ export interface TileMapType extends TileMapItemType {
   boundary?: boundaryType;
   encryptKey?: string;
   redraw?: boolean;
+  tileFormat?: TileFormatType;
+  // tileFormatが'webp'のときの品質（0〜100）
+  tileQuality?: number;
 }
 
 export type MapPresetType = {
@@ -416,6 +422,8 @@ export interface SettingsType {
   lockLocationPerLayer?: { [layerId: string]: boolean };
   //データ一覧の絞り込み条件。解除するまで保持するため画面の再表示をまたいで残す（fieldNameが空なら全フィールド）
   dataFilterPerLayer?: { [layerId: string]: { text: string; fieldName: string } };
+  //続けて重なるラスタ地図を1枚のタイルに合成して描く（Androidのみ）。端末ローカル設定
+  compositeTileMaps?: boolean;
 }
 
 export interface RegionType {
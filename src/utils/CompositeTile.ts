@@ -0,0 +1,71 @@
+import { TILE_FOLDER } from '../constants/AppConstants';
+import { TileMapType } from '../types';
+
+// 重ねて表示しているラスタ地図を、Android側で1枚のタイルに合成するためのヘルパー（純粋関数）。
+//
+// 地図ごとにUrlTileを置くとGoogle MapsのTileOverlayがレイヤ数だけでき、画面のタイル1枚ごとに
+// テクスチャの転送とブレンドがレイヤ数回かかる。続けて重なっているラスタ地図は1つのUrlTileに
+// まとめ、urlTemplateに composite:// と各レイヤの設定を渡してネイティブ側（MapCompositeTileProvider）で合成する。
+// 設定のcompositeTileMapsを有効にしたときだけ使う。
+
+export const COMPOSITE_SCHEME = 'composite://';
+
+// 合成した絵の保存先。キーは各地図のidとフォルダの世代から作るので、署名付きURLが更新されても使い続けられる。
+// 地図のタイルを消したり、ダウンロードし直したりしたとき（hooks/useTiles）はフォルダごと消す
+export const COMPOSITE_TILE_FOLDER = `${TILE_FOLDER}/composite`;
+
+// ネイティブ側のMapCompositeTileProvider.LayerConfigと同じ形
+export interface CompositeLayerType {
+  url: string;
+  tileCachePath: string;
+  opacity: number;
+  tileSize: number;
+  minimumZ: number;
+  maximumZ: number;
+  maximumNativeZ: number;
+  flipY: boolean;
+  doubleTileSize: boolean;
+  // 地図の保存形式（utils/TileFormat）。合成した絵はレイヤのうち最も粗くない形式で保存する
+  tileFormat?: 'webp' | 'webp_lossless';
+  tileQuality?: number;
+}
+
+export interface TileMapEntryType {
+  tileMap: TileMapType;
+  mapIndex: number;
+}
+
+export type TileMapRunType = { composite: false; entry: TileMapEntryType } | { composite: true; entries: TileMapEntryType[] };
+
+// PMTileで描く地図（ベクタータイルとPMTiles）。合成の対象外
+export const isPMTileMap = (tileMap: TileMapType): boolean =>
+  tileMap.url.startsWith('pmtiles://') || tileMap.url.includes('.pmtiles') || tileMap.url.includes('.pbf');
+
+// 描画順（下から）に並べた表示中の地図を、続けて重なるラスタ地図（2枚以上）のまとまりと、単独で描く地図に分ける。
+// PMTileを挟んだラスタ地図は重なり順を保つため別のまとまりにする。
+export const groupCompositeTileMaps = (entries: TileMapEntryType[]): TileMapRunType[] => {
+  const runs: TileMapRunType[] = [];
+  let pending: TileMapEntryType[] = [];
+  const flush = () => {
+    if (pending.length >= 2) {
+      runs.push({ composite: true, entries: pending });
+    } else {
+      pending.forEach((entry) => runs.push({ composite: false, entry }));
+    }
+    pending = [];
+  };
+  entries.forEach((entry) => {
+    if (isPMTileMap(entry.tileMap)) {
+      flush();
+      runs.push({ composite: false, entry });
+    } else {
+      pending.push(entry);
+    }
+  });
+  flush();
+  return runs;
+};
+
+// レイヤの設定をネイティブに渡すurlTemplateにする。下のレイヤが先
+export const buildCompositeTileUrl = (layers: CompositeLayerType[]): string =>
+  COMPOSITE_SCHEME + encodeURIComponent(JSON.stringify(layers));
@@ -1,7 +1,47 @@
+import { Platform } from 'react-native';
+import { LocationType, TileMapType } from '../types';
+import { TILE_FOLDER } from '../constants/AppConstants';
+import { isShadingUrl, toDemUrl } from './terrainShading';
+import { haversineKm } from './Location';
+import {
+  getNativeElevationProfile,
+  getNativeElevations,
+  isTileArchiveAvailable,
+  NativeElevationSource,
+} from './TileArchive';
+
 // 国土地理院(GSI)の標高API
 // https://maps.gsi.go.jp/development/elevation_s.html
 // 注意: 日本国内のみ対応。範囲外（海上や国外）は標高に "-----" を返す。
 const GSI_ELEVATION_URL = 'https://cyberjapandata2.gsi.go.jp/general/dem/scripts/getelevation.php';
+// APIは1点1リクエストなので、ネイティブが使えないときの同時リクエスト数と点数を抑える
+const GSI_API_CONCURRENCY = 4;
+export const GSI_API_MAX_POINTS = 100;
+
+// 立体図の地図が無いときに使う標高タイル（地理院 DEM10B）と保存先
+export const DEFAULT_DEM_URL = 'https://cyberjapandata.gsi.go.jp/xyz/dem_png/{z}/{x}/{y}.png';
+export const DEFAULT_DEM_MAX_ZOOM = 14;
+export const DEFAULT_DEM_FOLDER = `${TILE_FOLDER}/elevation`;
+// 断面の既定の間隔[m]。DEM10Bの画素（約10m）より細かくしても形は変わらない
+export const DEFAULT_PROFILE_INTERVAL = 10;
+
+export type ElevationOptions = {
+  // trueならダウンロード済み・キャッシュ済みのタイルだけを使い、通信しない
+  offline?: boolean;
+};
+
+export type ElevationProfile = {
+  coordinates: LocationType[];
+  distances: number[]; // 始点からの距離[m]
+  elevations: (number | null)[];
+};
+
+export type ElevationSummary = {
+  min: number;
+  max: number;
+  ascent: number; // 累積標高（登り）[m]
+  descent: number; // 累積標高（下り）[m]
+};
 
 interface GsiElevationResponse {
   elevation: number | string; // 範囲外は "-----"
@@ -24,3 +64,177 @@ export const getGsiElevation = async (latitude: number, longitude: number): Prom
     return null;
   }
 };
+
+/**
+ * 標高を読むタイル。表示中の立体図（陰影）の地図があればその標高タイルと保存先を使い、
+ * 無ければ地理院の標高タイルを`${TILE_FOLDER}/elevation`にキャッシュして使う。
+ */
+export const elevationSource = (tileMaps: TileMapType[], offline: boolean): NativeElevationSource => {
+  const shadingMaps = tileMaps.filter((m) => !m.isGroup && isShadingUrl(m.url));
+  const tileMap = shadingMaps.find((m) => m.visible) ?? shadingMaps[0];
+  if (tileMap === undefined) {
+    return { demUrl: DEFAULT_DEM_URL, folderUri: DEFAULT_DEM_FOLDER, maxZoom: DEFAULT_DEM_MAX_ZOOM, offline };
+  }
+  return {
+    demUrl: toDemUrl(tileMap.url),
+    folderUri: `${TILE_FOLDER}/${tileMap.id}`,
+    maxZoom: tileMap.overzoomThreshold,
+    offline,
+  };
+};
+
+const canUseNativeElevation = () => Platform.OS === 'android' && isTileArchiveAvailable();
+
+/**
+ * 複数点の標高(m)を返す。取得できない点は null。
+ * Androidは標高タイルからネイティブでまとめて求める（数千点でもタイルの枚数分しか読まない）。
+ * それ以外はオンラインのときだけ国土地理院APIに1点ずつ問い合わせる（GSI_API_MAX_POINTS点まで）。
+ */
+export const getElevations = async (
+  tileMaps: TileMapType[],
+  points: LocationType[],
+  options: ElevationOptions = {}
+): Promise<(number | null)[]> => {
+  const offline = options.offline ?? true;
+  if (points.length === 0) return [];
+  if (canUseNativeElevation()) {
+    try {
+      const result = await getNativeElevations(
+        elevationSource(tileMaps, offline),
+        points.map((p) => p.longitude),
+        points.map((p) => p.latitude)
+      );
+      return result.elevations;
+    } catch (e) {
+      console.log(e);
+      if (offline) return points.map(() => null);
+    }
+  }
+  if (offline || points.length > GSI_API_MAX_POINTS) return points.map(() => null);
+  return getGsiElevations(points);
+};
+
+/**
+ * 1点の標高(m)。取得できない場合は null。
+ * オンラインなら国土地理院API（DEM5Aなど、その地点で最も細かいデータの値）を使う。標高タイル（DEM10B）より
+ * 精しいので、1点だけのときはこちらを優先する。オフラインのときとAPIで取れなかったときは標高タイルから求める。
+ */
+export const getPointElevation = async (
+  tileMaps: TileMapType[],
+  point: LocationType,
+  options: ElevationOptions = {}
+): Promise<number | null> => {
+  const offline = options.offline ?? true;
+  if (!offline) {
+    const elevation = await getGsiElevation(point.latitude, point.longitude);
+    if (elevation !== null || !canUseNativeElevation()) return elevation;
+  }
+  const [elevation] = await getElevations(tileMaps, [point], options);
+  return elevation;
+};
+
+/**
+ * 線に沿ってintervalMeters[m]ごとの標高の断面を返す。頂点は必ず含む。
+ * Android以外は国土地理院APIを使うため、点数がGSI_API_MAX_POINTSに収まるよう間隔を広げる。
+ */
+export const getElevationProfile = async (
+  tileMaps: TileMapType[],
+  line: LocationType[],
+  intervalMeters: number = DEFAULT_PROFILE_INTERVAL,
+  options: ElevationOptions = {}
+): Promise<ElevationProfile> => {
+  const offline = options.offline ?? true;
+  if (canUseNativeElevation()) {
+    try {
+      const profile = await getNativeElevationProfile(
+        elevationSource(tileMaps, offline),
+        line.map((p) => p.longitude),
+        line.map((p) => p.latitude),
+        intervalMeters
+      );
+      return {
+        coordinates: profile.longitudes.map((longitude, i) => ({ longitude, latitude: profile.latitudes[i] })),
+        distances: profile.distances,
+        elevations: profile.elevations,
+      };
+    } catch (e) {
+      console.log(e);
+    }
+  }
+  const { coordinates, distances } = sampleLine(line, intervalMeters, GSI_API_MAX_POINTS);
+  const elevations = await getElevations(tileMaps, coordinates, options);
+  return { coordinates, distances, elevations };
+};
+
+const getGsiElevations = async (points: LocationType[]): Promise<(number | null)[]> => {
+  const elevations: (number | null)[] = new Array(points.length).fill(null);
+  for (let i = 0; i < points.length; i += GSI_API_CONCURRENCY) {
+    const chunk = points.slice(i, i + GSI_API_CONCURRENCY);
+    const results = await Promise.all(chunk.map((p) => getGsiElevation(p.latitude, p.longitude)));
+    results.forEach((e, j) => (elevations[i + j] = e));
+  }
+  return elevations;
+};
+
+/**
+ * 線をintervalMeters[m]ごとの点に分ける（ネイティブのElevationService.profileと同じ分け方）。
+ * 頂点は必ず含み、点数がmaxPointsを超える場合は間隔を広げる。
+ */
+export const sampleLine = (
+  line: LocationType[],
+  intervalMeters: number,
+  maxPoints: number
+): { coordinates: LocationType[]; distances: number[] } => {
+  const segments = line.slice(1).map((p, i) => haversineKm(line[i], p) * 1000);
+  const length = segments.reduce((sum, s) => sum + s, 0);
+  let interval = Math.max(intervalMeters, 1);
+  if (length / interval + line.length > maxPoints) {
+    interval = length / Math.max(1, maxPoints - line.length);
+  }
+
+  const coordinates: LocationType[] = [];
+  const distances: number[] = [];
+  let start = 0;
+  line.forEach((p, i) => {
+    coordinates.push({ latitude: p.latitude, longitude: p.longitude });
+    distances.push(start);
+    if (i === segments.length) return;
+    const next = line[i + 1];
+    const steps = Math.floor(segments[i] / interval);
+    for (let step = 1; step <= steps; step++) {
+      const t = (step * interval) / segments[i];
+      // 頂点に重なる点は次の頂点で入れる
+      if (t >= 1) break;
+      coordinates.push({
+        latitude: p.latitude + (next.latitude - p.latitude) * t,
+        longitude: p.longitude + (next.longitude - p.longitude) * t,
+      });
+      distances.push(start + step * interval);
+    }
+    start += segments[i];
+  });
+  return { coordinates, distances };
+};
+
+/**
+ * 断面の最低・最高標高と累積標高。標高の無い点は飛ばす。
+ * 標高タイルの細かな凹凸で累積標高が膨らまないよう、thresholdMeters未満の上下は数えない。
+ */
+export const summarizeProfile = (
+  elevations: (number | null)[],
+  thresholdMeters: number = 0
+): ElevationSummary | null => {
+  const values = elevations.filter((e): e is number => e !== null && Number.isFinite(e));
+  if (values.length === 0) return null;
+  let ascent = 0;
+  let descent = 0;
+  let reference = values[0];
+  for (const value of values.slice(1)) {
+    const diff = value - reference;
+    if (Math.abs(diff) < thresholdMeters) continue;
+    if (diff > 0) ascent += diff;
+    else descent -= diff;
+    reference = value;
+  }
+  return { min: Math.min(...values), max: Math.max(...values), ascent, descent };
+};
@@ -4,9 +4,15 @@ import { SaveFormat, manipulateAsync } from 'expo-image-manipulator';
 import * as FileSystem from 'expo-file-system/legacy';
 import { getTileRegion, tileToWebMercator } from './Tile';
 import { TileMapType } from '../types';
-import { warpedFileType } from 'react-native-gdalwarp';
+import {
+  addTileProgressListener,
+  generateTiles,
+  isGenerateTilesAvailable,
+  warpedFileType,
+} from 'react-native-gdalwarp';
 import ImageEditor from '@react-native-community/image-editor';
 import { moveFile, unlink } from '../utils/File';
+import { TileFormatOptions } from './TileFormat';
 
 // 一時ファイルにコピーし、画像を操作する関数
 // manipulateAsyncを通さないと特殊なpngタイルが正常に出力されないため使用する
@@ -118,8 +124,33 @@ export const generateTilesFromPDF = async (
   minimumZ: number,
   baseZoomLevel: number,
   coordPerPixel: number,
-  onProgress?: (ratio: number) => void
+  onProgress?: (ratio: number) => void,
+  tileFormat?: TileFormatOptions
 ) => {
+  if (isGenerateTilesAvailable()) {
+    // ネイティブで全ズームを1パスで書き出す（最大ズームから縮小して下のズームを作る）
+    const removeProgressListener = addTileProgressListener((p) => {
+      if (p.uri === outputFile.uri) onProgress?.(p.done / p.total);
+    });
+    try {
+      await generateTiles(
+        outputFile.uri,
+        `${TILE_FOLDER}/${mapId}`,
+        tileSize,
+        minimumZ,
+        baseZoomLevel,
+        tileFormat?.format,
+        tileFormat?.quality
+      );
+    } finally {
+      removeProgressListener();
+    }
+    // 失敗時は呼び出し元にエラーを返し、ワープ済みの画像は残す
+    onProgress?.(1);
+    unlink(pdfImage);
+    return;
+  }
+
   const tiles = [];
   for (let tileZ = baseZoomLevel; tileZ >= minimumZ; tileZ--) {
     const topLeftTile = calculateTile(outputFile.topLeft, tileZ);
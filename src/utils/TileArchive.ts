@@ -0,0 +1,150 @@
+import { NativeEventEmitter, NativeModules } from 'react-native';
+
+/**
+ * ネイティブのタイルアーカイブ処理（android/appのTileArchiveModule）。
+ * 現状Androidのみ実装しているので、呼び出し前にisTileArchiveAvailableで確認すること。
+ */
+const TileArchive = NativeModules.TileArchive;
+
+export type TileArchiveBounds = { minLon: number; minLat: number; maxLon: number; maxLat: number };
+export type TileArchiveProgress = { jobId: string; done: number; total: number };
+
+export const isTileArchiveAvailable = () => TileArchive !== undefined && TileArchive !== null;
+
+// 進捗イベントを購読する。戻り値で購読解除
+export const addTileArchiveProgressListener = (listener: (progress: TileArchiveProgress) => void) => {
+  const emitter = new NativeEventEmitter(TileArchive);
+  const subscription = emitter.addListener('TileArchiveProgress', listener);
+  return () => subscription.remove();
+};
+
+/**
+ * リモートのPMTilesから範囲とズームを指定してローカルの.pmtilesに抜き出す。
+ * 出力先を`${TILE_FOLDER}/${tileMapId}/`直下にすれば、オフライン時にPMTileがそのまま読む。
+ * 戻り値は書き出したタイル数
+ */
+export const extractPMTilesRegion = (
+  jobId: string,
+  url: string,
+  outputUri: string,
+  bounds: TileArchiveBounds,
+  minZoom: number,
+  maxZoom: number
+): Promise<number> => TileArchive.extractPMTilesRegion(jobId, url, outputUri, bounds, minZoom, maxZoom);
+
+/**
+ * `${TILE_FOLDER}/${tileMapId}`のz/x/yタイルのうち範囲とズームのものを、フォルダ直下のtiles.pmtilesにまとめる。
+ * 既にtiles.pmtilesがあれば合わせて1つに書き直す（同じタイルはz/x/yの方を使う）。範囲外のタイル（ダウンロード途中の領域）は触らない。
+ * deleteSourceならアーカイブに入れたタイルのファイルと空になったz/xフォルダを削除する。まとめている間に書かれたタイルは残る
+ * （iOSはアーカイブを読まないので注意）。
+ * 戻り値はアーカイブのタイル数
+ */
+export const compactTileFolder = (
+  jobId: string,
+  folderUri: string,
+  bounds: TileArchiveBounds,
+  minZoom: number,
+  maxZoom: number,
+  deleteSource: boolean
+): Promise<number> => TileArchive.compactTileFolder(jobId, folderUri, bounds, minZoom, maxZoom, deleteSource);
+
+/**
+ * タイルフォルダを消したり入れ替えたりした後に呼ぶ。ネイティブが開いているアーカイブと読み込み済みのベクタータイルを捨て、
+ * 地図は次のタイルからフォルダを読み直す
+ */
+export const forgetTileFolder = (folderUri: string): Promise<void> => TileArchive.forgetTileFolder(folderUri);
+
+/**
+ * `${TILE_FOLDER}/${tileMapId}`のz/x/yのラスタタイルを、フォルダ直下のtileformat.json（utils/TileFormat）の形式に書き換える。
+ * 形式が無ければ何もしない。全面透明・単色のタイルと、変換すると大きくなるタイルはそのまま。
+ * 戻り値は書き換えたタイル数
+ */
+export const transcodeTileFolder = (jobId: string, folderUri: string): Promise<number> =>
+  TileArchive.transcodeTileFolder(jobId, folderUri);
+
+/**
+ * タイルフォルダ（`${TILE_FOLDER}/${tileMapId}`）のベクタータイルで、経緯度の位置にある地物の属性を返す。
+ * ポイントとラインはtolerancePx（タイル幅256pxでのピクセル）以内、ポリゴンは内側にあるもの。
+ * 地図に描いたタイルはデコード済みのものを使い、無ければz/x/y.pbfかフォルダ直下の*.pmtilesから読む
+ */
+export const queryVectorTile = (
+  folderUri: string,
+  tile: { x: number; y: number; z: number },
+  latlon: number[],
+  tolerancePx: number
+): Promise<{ [key: string]: any }[]> =>
+  TileArchive.queryVectorTile(folderUri, tile.z, tile.x, tile.y, latlon[0], latlon[1], tolerancePx);
+
+export type NativeElevationSource = { demUrl: string; folderUri: string; maxZoom: number; offline: boolean };
+export type NativeElevations = { elevations: (number | null)[]; zooms: number[] };
+export type NativeElevationProfile = NativeElevations & { distances: number[]; longitudes: number[]; latitudes: number[] };
+
+/**
+ * 標高タイル（地理院の標高PNG形式）から点の標高[m]を求める。
+ * 点ごとにmaxZoomから4段まで粗いズームへ降り、取れた最も細かいズームでバイリニア補間する。
+ * offlineならfolderUri（z/x/yと直下の*.pmtiles）のタイルだけを読む。取れなかった点はnull、zoomsは-1
+ */
+export const getNativeElevations = (
+  source: NativeElevationSource,
+  longitudes: number[],
+  latitudes: number[]
+): Promise<NativeElevations> =>
+  TileArchive.getElevations(source.demUrl, source.folderUri, source.maxZoom, source.offline, longitudes, latitudes);
+
+/**
+ * 線（頂点の経緯度）に沿ってintervalMeters[m]ごとに標高を求める。頂点は必ず含む。
+ * 5000点を超える場合は間隔を広げる。distancesは始点からの距離[m]
+ */
+export const getNativeElevationProfile = (
+  source: NativeElevationSource,
+  longitudes: number[],
+  latitudes: number[],
+  intervalMeters: number
+): Promise<NativeElevationProfile> =>
+  TileArchive.getElevationProfile(
+    source.demUrl,
+    source.folderUri,
+    source.maxZoom,
+    source.offline,
+    longitudes,
+    latitudes,
+    intervalMeters
+  );
+
+export type TileMetricsStage = 'disk_read' | 'network' | 'decompress' | 'decode' | 'render' | 'shading' | 'encode';
+export type TileMetricsCounter = 'cache_hit' | 'cache_miss' | 'bytes_read' | 'bytes_fetched' | 'tiles';
+export type TileMetricsStageSnapshot = {
+  count: number;
+  avgMs: number;
+  p50Ms: number;
+  p90Ms: number;
+  p99Ms: number;
+  maxMs: number;
+};
+export type TileMetricsSnapshot = {
+  stages: Record<TileMetricsStage, TileMetricsStageSnapshot>;
+  counters: Record<TileMetricsCounter, number>;
+  inFlight: number;
+  uptimeMs: number;
+};
+
+/**
+ * タイルプロバイダー（UrlTile/PMTile/陰影/COG）の工程ごとの処理時間とキャッシュのヒット数など。
+ * パーセンタイルは2のべき乗の区間の上限値なので目安として使う
+ */
+export const getTileMetrics = (): Promise<TileMetricsSnapshot> => TileArchive.getTileMetrics();
+
+export const resetTileMetrics = (): void => TileArchive.resetTileMetrics();
+
+// intervalMsごとにlogcat（タグTileMetrics）へ出力する。0で停止
+export const setTileMetricsLogging = (intervalMs: number): void => TileArchive.setTileMetricsLogging(intervalMs);
+
+/**
+ * タイルプロバイダー（UrlTile/PMTile/陰影）への要求を時刻・キャッシュの結果・工程ごとの時間とともにファイルに記録する。
+ * 端末で再現しにくいカクつきを、benchmarks/native-tilesのreplayで同じ要求の流れとして再生するためのもの。
+ * maxMbに達したら以降は記録しない
+ */
+export const startTileTrace = (fileUri: string, maxMb = 64): Promise<void> => TileArchive.startTileTrace(fileUri, maxMb);
+
+// 記録を止める。戻り値は記録した要求の数
+export const stopTileTrace = (): Promise<number> => TileArchive.stopTileTrace();
@@ -0,0 +1,69 @@
+import { Platform } from 'react-native';
+import * as FileSystem from 'expo-file-system/legacy';
+import { TileMapType } from '../types';
+import { generateTiles, isGenerateTilesAvailable } from 'react-native-gdalwarp';
+import { PDF_COG_FILE, TILE_FOLDER } from '../constants/AppConstants';
+import { getTileType } from './tileDownloadHelpers';
+import { isTileArchiveAvailable, transcodeTileFolder } from './TileArchive';
+
+// ラスタタイルを保存するときの形式（Androidのみ）。
+// 地図フォルダ直下のtileformat.jsonに書いておき、ネイティブ側（react-native-mapsのTileTranscoder）が
+// UrlTileのキャッシュ・合成タイル・ダウンロード済みフォルダの変換でそれに従う。読むときは保存した形式のまま使う。
+
+export const TILE_FORMAT_FILE = 'tileformat.json';
+export const DEFAULT_TILE_QUALITY = 80;
+
+export type TileFormatOptions = { format: 'webp' | 'webp_lossless'; quality: number };
+
+// 形式を変えられる地図か。陰影（元タイルの画素値が標高）とベクタータイル・PMTilesは対象外
+export const canTranscodeTiles = (tileMap: TileMapType): boolean =>
+  !tileMap.isGroup && tileMap.url !== '' && getTileType(tileMap) === 'png';
+
+// 地図の設定から保存形式を返す。受け取ったまま保存するならundefined
+export const tileFormatOptions = (tileMap: TileMapType): TileFormatOptions | undefined => {
+  if (!canTranscodeTiles(tileMap) || tileMap.tileFormat === undefined || tileMap.tileFormat === 'original') {
+    return undefined;
+  }
+  const quality = Math.round(Math.min(100, Math.max(0, tileMap.tileQuality ?? DEFAULT_TILE_QUALITY)));
+  return { format: tileMap.tileFormat, quality };
+};
+
+// 地図フォルダのtileformat.jsonを設定に合わせて書く（受け取ったままなら消す）
+export const writeTileFormatFile = async (tileMap: TileMapType): Promise<TileFormatOptions | undefined> => {
+  const folder = `${TILE_FOLDER}/${tileMap.id}`;
+  const options = tileFormatOptions(tileMap);
+  if (options === undefined) {
+    await FileSystem.deleteAsync(`${folder}/${TILE_FORMAT_FILE}`, { idempotent: true });
+    return undefined;
+  }
+  await FileSystem.makeDirectoryAsync(folder, { intermediates: true });
+  await FileSystem.writeAsStringAsync(`${folder}/${TILE_FORMAT_FILE}`, JSON.stringify(options));
+  return options;
+};
+
+// 保存形式を反映し、保存済みのタイル（ダウンロード・キャッシュ・PDF）も書き換える。countは書き換えたタイル数。
+// COGで取り込んだPDFの地図はCOGからタイルを切り出してCOGを消すので、地図を載せ直す（redraw）必要がある。
+// WebPからPNGには戻さない（画質は戻らないので、戻す場合はタイルを消してダウンロードし直す）
+export const applyTileFormat = async (tileMap: TileMapType): Promise<{ count: number; redraw: boolean }> => {
+  if (Platform.OS !== 'android') return { count: 0, redraw: false };
+  const options = await writeTileFormatFile(tileMap);
+  if (options === undefined) return { count: 0, redraw: false };
+  const folder = `${TILE_FOLDER}/${tileMap.id}`;
+  const cogUri = `${folder}/${PDF_COG_FILE}`;
+  if (isGenerateTilesAvailable() && (await FileSystem.getInfoAsync(cogUri)).exists) {
+    const count = await generateTiles(
+      cogUri.replace('file://', ''),
+      folder,
+      tileMap.tileSize ?? 512,
+      tileMap.minimumZ,
+      tileMap.overzoomThreshold,
+      options.format,
+      options.quality
+    );
+    await FileSystem.deleteAsync(cogUri, { idempotent: true });
+    return { count, redraw: true };
+  }
+  if (!isTileArchiveAvailable()) return { count: 0, redraw: false };
+  const count = await transcodeTileFolder(`transcode-${tileMap.id}`, folder);
+  return { count, redraw: false };
+};
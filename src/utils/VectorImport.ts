@@ -0,0 +1,57 @@
+import { Feature, FeatureCollection, GeoJsonProperties, Geometry } from 'geojson';
+import type { VectorGeometryType, VectorImportGroup } from 'react-native-gdalwarp';
+import { GeoJsonFeatureType } from '../types';
+
+/**
+ * react-native-gdalwarpのimportVectorが書き出した作業用SQLite（featuresテーブル）を読むための補助。
+ * フィーチャーはページ単位でFeatureCollectionにして、既存のgeoJson2Dataでレコードにする。
+ */
+export const VECTOR_IMPORT_DATABASE = 'vector_import.sqlite';
+export const VECTOR_IMPORT_PAGE_SIZE = 2000;
+
+export type VectorImportRow = { id: number; geometry: string; properties: string };
+
+const geometryTypeToFeatureType: Record<VectorGeometryType, GeoJsonFeatureType> = {
+  Point: 'POINT',
+  MultiPoint: 'MULTIPOINT',
+  LineString: 'LINE',
+  MultiLineString: 'MULTILINE',
+  Polygon: 'POLYGON',
+  MultiPolygon: 'MULTIPOLYGON',
+};
+
+export const vectorGroupFeatureType = (group: VectorImportGroup): GeoJsonFeatureType =>
+  geometryTypeToFeatureType[group.geometryType] ?? 'NONE';
+
+// 1ファイルに複数のレイヤやジオメトリタイプがあれば、区別できるようにレイヤ名を付ける
+export const vectorGroupLayerName = (group: VectorImportGroup, groups: VectorImportGroup[], fileName: string) => {
+  if (groups.length <= 1) return fileName;
+  const sameLayer = groups.filter((g) => g.layer === group.layer).length;
+  const layerName = groups.some((g) => g.layer !== group.layer) ? `${fileName}_${group.layerName}` : fileName;
+  return sameLayer > 1 ? `${layerName}_${group.geometryType}` : layerName;
+};
+
+// createLayerFromGeoJsonにフィールドを渡すための、属性だけを持つFeatureCollection
+export const vectorGroupFieldsGeoJson = (
+  group: VectorImportGroup
+): FeatureCollection<Geometry | null, GeoJsonProperties> => ({
+  type: 'FeatureCollection',
+  features: [
+    {
+      type: 'Feature',
+      geometry: null,
+      properties: Object.fromEntries(group.fields.map((field) => [field, ''])),
+    },
+  ],
+});
+
+export const vectorRowsToGeoJson = (rows: VectorImportRow[]): FeatureCollection<Geometry | null, GeoJsonProperties> => ({
+  type: 'FeatureCollection',
+  features: rows.map(
+    (row): Feature<Geometry | null, GeoJsonProperties> => ({
+      type: 'Feature',
+      geometry: JSON.parse(row.geometry),
+      properties: JSON.parse(row.properties),
+    })
+  ),
+});
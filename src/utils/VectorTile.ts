@@ -6,6 +6,8 @@ import { TILE_FOLDER } from '../constants/AppConstants';
 import { Buffer } from 'buffer';
 import { getMetersPerPixelAtZoomLevel } from './Coords';
 import { Position } from 'geojson';
+import { Platform } from 'react-native';
+import { isTileArchiveAvailable, queryVectorTile } from './TileArchive';
 
 //const pmtile = new PMTiles('https://www.ecoris.co.jp/map/kitakami_h30.pmtiles');
 
@@ -17,6 +19,10 @@ export const fetchVectorTileInfo = async (
   //const LAYER_NAME = '北上川H30';
   //console.log(tile.z, tile.x, tile.y);
   try {
+    // Androidはネイティブで検索する（描画でデコードしたタイルと索引を使う）。許容距離は1px
+    if (Platform.OS === 'android' && isTileArchiveAvailable()) {
+      return await queryVectorTile(`${TILE_FOLDER}/${tileMapId}`, tile, latlon, 1);
+    }
     // ズームレベルに応じて検索範囲を調整（低いズームレベルのタイルは広い範囲をカバー）
     const maxDistanceToLine = getMetersPerPixelAtZoomLevel(latlon[1], tile.z);
 
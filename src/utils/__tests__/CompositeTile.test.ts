@@ -0,0 +1,97 @@
+import {
+  buildCompositeTileUrl,
+  COMPOSITE_SCHEME,
+  CompositeLayerType,
+  groupCompositeTileMaps,
+  isPMTileMap,
+  TileMapEntryType,
+} from '../CompositeTile';
+import { TileMapType } from '../../types';
+
+const tileMap = (over: Partial<TileMapType>): TileMapType =>
+  ({
+    id: 'id',
+    name: 'name',
+    url: '',
+    attribution: '',
+    maptype: 'none',
+    visible: true,
+    transparency: 0,
+    overzoomThreshold: 18,
+    highResolutionEnabled: false,
+    minimumZ: 0,
+    maximumZ: 22,
+    flipY: false,
+    ...over,
+  } as TileMapType);
+
+const entry = (id: string, url: string, mapIndex: number): TileMapEntryType => ({
+  tileMap: tileMap({ id, url }),
+  mapIndex,
+});
+
+const ids = (entries: TileMapEntryType[]) => entries.map((e) => e.tileMap.id);
+
+describe('isPMTileMap', () => {
+  it('PMTilesとベクタータイルを判定する', () => {
+    expect(isPMTileMap(tileMap({ url: 'pmtiles://https://example.com/a.pmtiles' }))).toBe(true);
+    expect(isPMTileMap(tileMap({ url: 'https://example.com/a.pmtiles' }))).toBe(true);
+    expect(isPMTileMap(tileMap({ url: 'https://example.com/{z}/{x}/{y}.pbf' }))).toBe(true);
+    expect(isPMTileMap(tileMap({ url: 'https://example.com/{z}/{x}/{y}.png' }))).toBe(false);
+    expect(isPMTileMap(tileMap({ url: 'hillshade://https://example.com/{z}/{x}/{y}.png' }))).toBe(false);
+  });
+});
+
+describe('groupCompositeTileMaps', () => {
+  it('続けて重なるラスタ地図を1つにまとめる', () => {
+    const runs = groupCompositeTileMaps([
+      entry('a', 'https://example.com/a/{z}/{x}/{y}.png', 0),
+      entry('b', 'hillshade://https://example.com/dem/{z}/{x}/{y}.png', 1),
+      entry('c', 'pdf://c', 2),
+    ]);
+    expect(runs).toHaveLength(1);
+    expect(runs[0].composite).toBe(true);
+    expect(runs[0].composite && ids(runs[0].entries)).toEqual(['a', 'b', 'c']);
+  });
+
+  it('1枚だけのラスタ地図はまとめない', () => {
+    const runs = groupCompositeTileMaps([entry('a', 'https://example.com/a/{z}/{x}/{y}.png', 0)]);
+    expect(runs).toEqual([{ composite: false, entry: entry('a', 'https://example.com/a/{z}/{x}/{y}.png', 0) }]);
+  });
+
+  it('PMTileを挟んだラスタ地図は重なり順を保って分ける', () => {
+    const runs = groupCompositeTileMaps([
+      entry('a', 'https://example.com/a/{z}/{x}/{y}.png', 0),
+      entry('b', 'https://example.com/b/{z}/{x}/{y}.png', 1),
+      entry('v', 'https://example.com/v.pmtiles', 2),
+      entry('c', 'https://example.com/c/{z}/{x}/{y}.png', 3),
+    ]);
+    expect(runs.map((run) => (run.composite ? ids(run.entries) : run.entry.tileMap.id))).toEqual([
+      ['a', 'b'],
+      'v',
+      'c',
+    ]);
+  });
+});
+
+describe('buildCompositeTileUrl', () => {
+  it('レイヤ設定をURLエンコードしたJSONにする', () => {
+    const layers: CompositeLayerType[] = [
+      {
+        url: 'https://example.com/{z}/{x}/{y}.png?a=1&b=2',
+        tileCachePath: '/tiles/a',
+        opacity: 0.5,
+        tileSize: 256,
+        minimumZ: 0,
+        maximumZ: 22,
+        maximumNativeZ: 18,
+        flipY: false,
+        doubleTileSize: false,
+      },
+    ];
+    const url = buildCompositeTileUrl(layers);
+    expect(url.startsWith(COMPOSITE_SCHEME)).toBe(true);
+    expect(url).not.toContain('{');
+    expect(JSON.parse(decodeURIComponent(url.slice(COMPOSITE_SCHEME.length)))).toEqual(layers);
+  });
+});
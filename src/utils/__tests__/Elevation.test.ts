@@ -0,0 +1,55 @@
+import { sampleLine, summarizeProfile } from '../Elevation';
+
+jest.mock('expo-file-system/legacy', () => ({
+  documentDirectory: 'file:///test/',
+}));
+jest.mock('../mmkvStorage', () => ({ trackLogMMKV: {} }));
+
+// 緯度35度付近で経度0.01度 ≒ 912m、緯度0.01度 ≒ 1112m
+const line = [
+  { latitude: 35, longitude: 139 },
+  { latitude: 35, longitude: 139.01 },
+  { latitude: 35.01, longitude: 139.01 },
+];
+
+describe('sampleLine', () => {
+  it('間隔ごとに分け、頂点を含める', () => {
+    const { coordinates, distances } = sampleLine(line, 100, 1000);
+    expect(coordinates[0]).toEqual(line[0]);
+    expect(coordinates[coordinates.length - 1]).toEqual(line[2]);
+    // 頂点3つ + 区間ごとの途中の点(9 + 11)
+    expect(coordinates.length).toBe(23);
+    expect(distances[1]).toBeCloseTo(100, 6);
+    expect(distances[distances.length - 1]).toBeGreaterThan(2000);
+    expect(distances[distances.length - 1]).toBeLessThan(2050);
+    for (let i = 1; i < distances.length; i++) {
+      expect(distances[i]).toBeGreaterThan(distances[i - 1]);
+    }
+  });
+
+  it('点数の上限を超えるなら間隔を広げる', () => {
+    const { coordinates } = sampleLine(line, 1, 50);
+    expect(coordinates.length).toBeLessThanOrEqual(50);
+    expect(coordinates.length).toBeGreaterThan(40);
+  });
+
+  it('頂点が1つ以下', () => {
+    expect(sampleLine([], 10, 100).coordinates).toEqual([]);
+    expect(sampleLine([line[0]], 10, 100).distances).toEqual([0]);
+  });
+});
+
+describe('summarizeProfile', () => {
+  it('最低・最高と累積標高', () => {
+    expect(summarizeProfile([100, 120, null, 110, 150])).toEqual({ min: 100, max: 150, ascent: 60, descent: 10 });
+  });
+
+  it('しきい値未満の上下は数えない', () => {
+    expect(summarizeProfile([100, 101, 100, 101, 110], 5)).toEqual({ min: 100, max: 110, ascent: 10, descent: 0 });
+  });
+
+  it('標高が無ければnull', () => {
+    expect(summarizeProfile([null, null])).toBeNull();
+    expect(summarizeProfile([])).toBeNull();
+  });
+});
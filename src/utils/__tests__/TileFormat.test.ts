@@ -0,0 +1,61 @@
+import { TileMapType } from '../../types';
+import { canTranscodeTiles, DEFAULT_TILE_QUALITY, tileFormatOptions } from '../TileFormat';
+
+jest.mock('expo-file-system/legacy', () => ({
+  documentDirectory: 'file:///test/',
+}));
+jest.mock('react-native-gdalwarp', () => ({
+  generateTiles: jest.fn(),
+  isGenerateTilesAvailable: () => false,
+}));
+
+const tileMap = (over: Partial<TileMapType>): TileMapType => ({
+  id: 'M1',
+  name: 'Map 1',
+  url: 'https://example.com/{z}/{x}/{y}.png',
+  attribution: '',
+  maptype: 'none',
+  visible: true,
+  transparency: 0,
+  overzoomThreshold: 18,
+  highResolutionEnabled: false,
+  minimumZ: 0,
+  maximumZ: 22,
+  flipY: false,
+  ...over,
+});
+
+describe('canTranscodeTiles', () => {
+  it('ラスタ地図だけを対象にする', () => {
+    expect(canTranscodeTiles(tileMap({}))).toBe(true);
+    expect(canTranscodeTiles(tileMap({ url: 'file://map.pdf' }))).toBe(true);
+    expect(canTranscodeTiles(tileMap({ url: 'hillshade://https://example.com/dem/{z}/{x}/{y}.png' }))).toBe(false);
+    expect(canTranscodeTiles(tileMap({ url: 'https://example.com/{z}/{x}/{y}.pbf' }))).toBe(false);
+    expect(canTranscodeTiles(tileMap({ url: 'pmtiles://https://example.com/a.pmtiles' }))).toBe(false);
+    expect(canTranscodeTiles(tileMap({ isGroup: true }))).toBe(false);
+    expect(canTranscodeTiles(tileMap({ url: '' }))).toBe(false);
+  });
+});
+
+describe('tileFormatOptions', () => {
+  it('受け取ったままならundefined', () => {
+    expect(tileFormatOptions(tileMap({}))).toBeUndefined();
+    expect(tileFormatOptions(tileMap({ tileFormat: 'original' }))).toBeUndefined();
+  });
+
+  it('品質の既定値と範囲', () => {
+    expect(tileFormatOptions(tileMap({ tileFormat: 'webp' }))).toEqual({
+      format: 'webp',
+      quality: DEFAULT_TILE_QUALITY,
+    });
+    expect(tileFormatOptions(tileMap({ tileFormat: 'webp', tileQuality: 120 }))?.quality).toBe(100);
+    expect(tileFormatOptions(tileMap({ tileFormat: 'webp', tileQuality: 72.4 }))?.quality).toBe(72);
+    expect(tileFormatOptions(tileMap({ tileFormat: 'webp_lossless' }))?.format).toBe('webp_lossless');
+  });
+
+  it('対象外の地図は指定があっても変換しない', () => {
+    expect(
+      tileFormatOptions(tileMap({ url: 'hillshade://https://example.com/dem/{z}/{x}/{y}.png', tileFormat: 'webp' }))
+    ).toBeUndefined();
+  });
+});
@@ -0,0 +1,56 @@
+import type { VectorImportGroup } from 'react-native-gdalwarp';
+import {
+  vectorGroupFeatureType,
+  vectorGroupFieldsGeoJson,
+  vectorGroupLayerName,
+  vectorRowsToGeoJson,
+} from '../VectorImport';
+
+const group = (layer: number, layerName: string, geometryType: VectorImportGroup['geometryType']): VectorImportGroup => ({
+  layer,
+  layerName,
+  geometryType,
+  count: 1,
+  fields: ['name', 'code'],
+});
+
+describe('vectorGroupFeatureType', () => {
+  it('maps geometry types to feature types', () => {
+    expect(vectorGroupFeatureType(group(0, 'a', 'Point'))).toBe('POINT');
+    expect(vectorGroupFeatureType(group(0, 'a', 'MultiLineString'))).toBe('MULTILINE');
+    expect(vectorGroupFeatureType(group(0, 'a', 'Polygon'))).toBe('POLYGON');
+  });
+});
+
+describe('vectorGroupLayerName', () => {
+  it('uses the file name for a single group', () => {
+    const groups = [group(0, 'roads', 'LineString')];
+    expect(vectorGroupLayerName(groups[0], groups, 'roads.zip')).toBe('roads.zip');
+  });
+
+  it('adds the layer name and geometry type when needed', () => {
+    const groups = [group(0, 'roads', 'LineString'), group(0, 'roads', 'MultiLineString'), group(1, 'plots', 'Polygon')];
+    expect(vectorGroupLayerName(groups[0], groups, 'survey.gpkg')).toBe('survey.gpkg_roads_LineString');
+    expect(vectorGroupLayerName(groups[2], groups, 'survey.gpkg')).toBe('survey.gpkg_plots');
+  });
+});
+
+describe('vectorGroupFieldsGeoJson', () => {
+  it('returns a feature with empty properties for each field', () => {
+    expect(vectorGroupFieldsGeoJson(group(0, 'a', 'Point')).features[0].properties).toStrictEqual({
+      name: '',
+      code: '',
+    });
+  });
+});
+
+describe('vectorRowsToGeoJson', () => {
+  it('parses geometry and properties of each row', () => {
+    const geojson = vectorRowsToGeoJson([
+      { id: 1, geometry: '{"type":"Point","coordinates":[140.1,38.2]}', properties: '{"name":"A"}' },
+    ]);
+    expect(geojson.features).toStrictEqual([
+      { type: 'Feature', geometry: { type: 'Point', coordinates: [140.1, 38.2] }, properties: { name: 'A' } },
+    ]);
+  });
+});
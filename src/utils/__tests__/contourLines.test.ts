@@ -0,0 +1,168 @@
+import {
+  contourInterval,
+  isIndexContour,
+  placeContourLabels,
+  traceContours,
+  ContourWindow,
+  INDEX_CONTOUR_EVERY,
+} from '../contourLines';
+
+const SIZE = 32;
+const HALO = 2;
+const BUFFER = SIZE + 2 * HALO;
+const FULL: ContourWindow = { originX: 0, originY: 0, span: SIZE, outputSize: SIZE };
+
+// 全体の画素座標(gx, gy)の標高から、タイル(tx, ty)の袖付きバッファを作る
+const makeBuffer = (height: (gx: number, gy: number) => number, tx = 0, ty = 0) => {
+  const buffer = new Float32Array(BUFFER * BUFFER);
+  for (let y = 0; y < BUFFER; y++) {
+    for (let x = 0; x < BUFFER; x++) {
+      buffer[y * BUFFER + x] = height(tx * SIZE + x - HALO, ty * SIZE + y - HALO);
+    }
+  }
+  return buffer;
+};
+
+const hills = (gx: number, gy: number) => 300 + 80 * Math.sin(gx / 7) + 60 * Math.cos(gy / 5) + gx;
+
+describe('contourInterval', () => {
+  it('ズームが上がるほど細かく、計曲線は5本ごと', () => {
+    expect(contourInterval(16)).toBe(10);
+    expect(contourInterval(14)).toBe(20);
+    expect(contourInterval(8)).toBe(500);
+    for (let z = 0; z < 22; z++) {
+      expect(contourInterval(z + 1)).toBeLessThanOrEqual(contourInterval(z));
+    }
+    expect(INDEX_CONTOUR_EVERY).toBe(5);
+    expect(isIndexContour(10)).toBe(true);
+    expect(isIndexContour(-5)).toBe(true);
+    expect(isIndexContour(3)).toBe(false);
+  });
+});
+
+describe('traceContours', () => {
+  it('東向きの斜面は南北の直線になる', () => {
+    // 1画素で1m上がる。10mの線は標高10mの画素10の中心（10.5）を通る
+    const { lines } = traceContours(
+      makeBuffer((gx) => gx),
+      BUFFER,
+      HALO,
+      FULL,
+      10
+    );
+    expect(lines.length).toBeGreaterThan(0);
+    for (let i = 0; i < lines.length; i += 4) {
+      expect(lines[i]).toBeCloseTo(lines[i + 2], 5);
+      expect((lines[i] - 0.5) % 10).toBeCloseTo(0, 5);
+    }
+  });
+
+  it('計曲線は別に持ち、標高を付ける', () => {
+    const segments = traceContours(
+      makeBuffer((gx) => gx * 4),
+      BUFFER,
+      HALO,
+      FULL,
+      10
+    );
+    expect(segments.indexLevels.length).toBe(segments.indexLines.length / 4);
+    expect(segments.indexLevels.every((level) => level % 50 === 0)).toBe(true);
+  });
+
+  it('標高の無い画素に接するセルは線を引かない', () => {
+    const { lines, indexLines } = traceContours(
+      makeBuffer((gx) => (gx < SIZE / 2 ? NaN : gx)),
+      BUFFER,
+      HALO,
+      FULL,
+      1
+    );
+    const xs = [...lines, ...indexLines].filter((_, i) => i % 2 === 0);
+    expect(Math.min(...xs)).toBeGreaterThanOrEqual(SIZE / 2 + 0.5);
+  });
+
+  it('隣り合うタイルの境界で線分が一致する', () => {
+    // 境界（x = SIZE）をまたぐセルの線分を全体の座標で比べる
+    const seam = (tx: number) => {
+      const { lines } = traceContours(makeBuffer(hills, tx, 0), BUFFER, HALO, FULL, 5);
+      const keys: string[] = [];
+      for (let i = 0; i < lines.length; i += 4) {
+        const x0 = lines[i] + tx * SIZE;
+        const x1 = lines[i + 2] + tx * SIZE;
+        if (Math.min(x0, x1) >= SIZE - 0.5 && Math.max(x0, x1) <= SIZE + 0.5) {
+          keys.push([x0, lines[i + 1], x1, lines[i + 3]].map((v) => v.toFixed(4)).join(','));
+        }
+      }
+      return keys.sort();
+    };
+    expect(seam(0).length).toBeGreaterThan(0);
+    expect(seam(0)).toEqual(seam(1));
+  });
+
+  it('鞍点はセル中心の平均で向きを決める', () => {
+    // 右上と左下だけが51mより高いセル
+    const saddle = (bottomRight: number) => {
+      const buffer = new Float32Array(BUFFER * BUFFER).fill(NaN);
+      const i = HALO * BUFFER + HALO;
+      buffer[i] = 0;
+      buffer[i + 1] = 100;
+      buffer[i + BUFFER] = 100;
+      buffer[i + BUFFER + 1] = bottomRight;
+      return traceContours(buffer, BUFFER, HALO, FULL, 51).lines;
+    };
+    const expectSegment = (actual: number[], expected: number[]) =>
+      expected.forEach((v, i) => expect(actual[i]).toBeCloseTo(v, 6));
+
+    // 平均62.25mが上なので、低い左上と右下を切り離す。左上の線分は左の辺と上の辺を結ぶ
+    const above = saddle(49);
+    expect(above.length).toBe(8);
+    expectSegment(above.slice(0, 4), [0.5, 1.01, 1.01, 0.5]);
+
+    // 平均50mが下なので、高い右上と左下を切り離す。右上の線分は上の辺と右の辺を結ぶ
+    const below = saddle(0);
+    expect(below.length).toBe(8);
+    expectSegment(below.slice(0, 4), [1.01, 0.5, 1.5, 0.5 + 49 / 100]);
+  });
+
+  it('オーバーズームは範囲の線を拡大する', () => {
+    const zoomed: ContourWindow = { originX: 8, originY: 8, span: 8, outputSize: 256 };
+    const { lines } = traceContours(
+      makeBuffer((gx) => gx),
+      BUFFER,
+      HALO,
+      zoomed,
+      1
+    );
+    // 11mの線は画素座標11.5なので (11.5 - 8) * 32 = 112
+    const xs = lines.filter((_, i) => i % 4 === 0);
+    expect(xs).toContain(112);
+    expect(Math.min(...xs)).toBeGreaterThan(-64);
+    expect(Math.max(...xs)).toBeLessThan(256 + 64);
+  });
+});
+
+describe('placeContourLabels', () => {
+  it('縁から離し、互いに間隔を空け、文字が逆さにならない向きに置く', () => {
+    const buffer = makeBuffer(hills);
+    const segments = traceContours(buffer, BUFFER, HALO, FULL, 2);
+    const labels = placeContourLabels(segments, buffer, BUFFER, HALO, FULL, 4, 8, 10);
+    expect(labels.length).toBeGreaterThan(0);
+    labels.forEach((label, i) => {
+      expect(label.x).toBeGreaterThanOrEqual(4);
+      expect(label.x).toBeLessThanOrEqual(SIZE - 4);
+      expect(label.angle).toBeGreaterThan(-Math.PI / 2);
+      expect(label.angle).toBeLessThanOrEqual(Math.PI / 2);
+      expect(label.level % 10).toBe(0);
+      labels.slice(i + 1).forEach((other) => {
+        expect(Math.hypot(other.x - label.x, other.y - label.y)).toBeGreaterThanOrEqual(8);
+      });
+    });
+  });
+
+  it('南北の等高線は縦向き', () => {
+    const buffer = makeBuffer((gx) => gx * 4);
+    const segments = traceContours(buffer, BUFFER, HALO, FULL, 2);
+    const [label] = placeContourLabels(segments, buffer, BUFFER, HALO, FULL, 4, 8, 1);
+    expect(Math.abs(label.angle)).toBeCloseTo(Math.PI / 2, 5);
+  });
+});
@@ -5,6 +5,7 @@ import {
   requiredHalo,
   isShadingUrl,
   toDemUrl,
+  demRenderOptions,
   SHADING_URL_PREFIX,
   DEFAULT_SHADING_OPTIONS,
 } from '../terrainShading';
@@ -129,6 +130,16 @@ describe('地図URLの判定', () => {
   it('動作確認時の方式指定フラグメントが残っていても落とす', () => {
     expect(toDemUrl(SHADING_URL_PREFIX + DEM + '#mpi-gray')).toBe(DEM);
   });
+
+  it('フラグメントで等高線と注記を指定する', () => {
+    expect(demRenderOptions(SHADING_URL_PREFIX + DEM)).toEqual({ contour: false, labels: false });
+    expect(demRenderOptions(SHADING_URL_PREFIX + DEM + '#mode=contour')).toEqual({ contour: true, labels: false });
+    expect(demRenderOptions(SHADING_URL_PREFIX + DEM + '?sig=1#mode=contour&labels=1')).toEqual({
+      contour: true,
+      labels: true,
+    });
+    expect(toDemUrl(SHADING_URL_PREFIX + DEM + '#mode=contour&labels=1')).toBe(DEM);
+  });
 });
 
 // 本方式の存在理由そのもの。光源を使う従来の陰影図はここで失敗する
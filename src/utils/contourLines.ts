@@ -0,0 +1,207 @@
+/**
+ * 標高バッファから等高線を引く（マーチングスクエア）。
+ *
+ * 画素の値は画素の中心の標高とみなし、隣り合う4画素の中心を結ぶセルごとに線分を求める。
+ * タイルの境界をまたぐセルは袖の画素を使うので、隣のタイルでも同じ線分になり継ぎ目がずれない。
+ * 鞍点（対角の2画素だけが高い）はセル中心の平均で向きを決める。これもタイルによらない。
+ *
+ * Android版の ContourKernel.java（patches/react-native-maps+1.27.2.patch）と同じ計算をしている。
+ * 変更時は両方を揃えること。
+ */
+
+/** 計曲線（太線・注記）は主曲線の何本ごとか */
+export const INDEX_CONTOUR_EVERY = 5;
+
+/**
+ * ズームごとの主曲線の間隔[m]。地理院地図の等高線に近い密度にしている
+ * （z15〜16は1/25000地形図と同じ10m）。
+ */
+export function contourInterval(zoom: number): number {
+  if (zoom >= 17) return 5;
+  if (zoom >= 15) return 10;
+  if (zoom === 14) return 20;
+  if (zoom === 13) return 50;
+  if (zoom === 12) return 100;
+  if (zoom === 11) return 200;
+  return 500;
+}
+
+/** 主曲線の高さの番号（標高/間隔）が計曲線か */
+export function isIndexContour(step: number): boolean {
+  return ((step % INDEX_CONTOUR_EVERY) + INDEX_CONTOUR_EVERY) % INDEX_CONTOUR_EVERY === 0;
+}
+
+/**
+ * 描く範囲。タイル内の画素座標（袖を除いた左上が0）でoriginから一辺span、
+ * それを出力の一辺outputSizeへ拡大する。オーバーズーム時は粗いタイルの一部を切り出す。
+ */
+export type ContourWindow = { originX: number; originY: number; span: number; outputSize: number };
+
+/**
+ * 線分は出力の座標でx0, y0, x1, y1の順。計曲線は標高も持つ。
+ */
+export type ContourSegments = {
+  lines: number[];
+  indexLines: number[];
+  indexLevels: number[];
+};
+
+/** 注記はx, y, 角度[rad], 標高の順 */
+export type ContourLabel = { x: number; y: number; angle: number; level: number };
+
+/**
+ * 袖付きの標高バッファ（一辺bufferWidth、袖halo画素）から、windowの範囲の等高線を求める。
+ * 標高の無い画素（NaN）に接するセルは線を引かない。
+ */
+export function traceContours(
+  buffer: Float32Array,
+  bufferWidth: number,
+  halo: number,
+  window: ContourWindow,
+  interval: number
+): ContourSegments {
+  const result: ContourSegments = { lines: [], indexLines: [], indexLevels: [] };
+  const scale = window.outputSize / window.span;
+  // セル(cx, cy)は画素の中心 cx+0.5〜cx+1.5 を覆う。範囲に掛かるセルと、袖の中に収まるセルに絞る
+  const min = -halo;
+  const max = bufferWidth - halo - 2;
+  const cx0 = Math.max(min, Math.floor(window.originX - 1.5));
+  const cx1 = Math.min(max, Math.ceil(window.originX + window.span - 0.5));
+  const cy0 = Math.max(min, Math.floor(window.originY - 1.5));
+  const cy1 = Math.min(max, Math.ceil(window.originY + window.span - 0.5));
+
+  for (let cy = cy0; cy <= cy1; cy++) {
+    const row = (cy + halo) * bufferWidth;
+    for (let cx = cx0; cx <= cx1; cx++) {
+      const i = row + cx + halo;
+      const tl = buffer[i];
+      const tr = buffer[i + 1];
+      const bl = buffer[i + bufferWidth];
+      const br = buffer[i + bufferWidth + 1];
+      if (Number.isNaN(tl) || Number.isNaN(tr) || Number.isNaN(bl) || Number.isNaN(br)) continue;
+
+      const lo = Math.min(tl, tr, bl, br);
+      const hi = Math.max(tl, tr, bl, br);
+      // lo < level <= hi の高さだけが交わる
+      const firstStep = Math.floor(lo / interval) + 1;
+      const lastStep = Math.floor(hi / interval);
+      if (firstStep > lastStep) continue;
+
+      const x0 = (cx + 0.5 - window.originX) * scale;
+      const y0 = (cy + 0.5 - window.originY) * scale;
+      for (let step = firstStep; step <= lastStep; step++) {
+        const level = step * interval;
+        const index = isIndexContour(step);
+        const out = index ? result.indexLines : result.lines;
+        const before = out.length;
+        addCell(out, tl, tr, br, bl, level, x0, y0, scale);
+        if (index) {
+          for (let n = (out.length - before) / 4; n > 0; n--) result.indexLevels.push(level);
+        }
+      }
+    }
+  }
+  return result;
+}
+
+// 1セル・1高さの線分を足す。角の値がlevel以上なら「上」
+function addCell(
+  out: number[],
+  tl: number,
+  tr: number,
+  br: number,
+  bl: number,
+  level: number,
+  x0: number,
+  y0: number,
+  scale: number
+): void {
+  const code = (tl >= level ? 8 : 0) | (tr >= level ? 4 : 0) | (br >= level ? 2 : 0) | (bl >= level ? 1 : 0);
+  if (code === 0 || code === 15) return;
+
+  const x1 = x0 + scale;
+  const y1 = y0 + scale;
+  const topX = x0 + ((level - tl) / (tr - tl)) * scale;
+  const rightY = y0 + ((level - tr) / (br - tr)) * scale;
+  const bottomX = x0 + ((level - bl) / (br - bl)) * scale;
+  const leftY = y0 + ((level - tl) / (bl - tl)) * scale;
+
+  switch (code) {
+    case 1:
+    case 14:
+      out.push(x0, leftY, bottomX, y1);
+      break;
+    case 2:
+    case 13:
+      out.push(bottomX, y1, x1, rightY);
+      break;
+    case 3:
+    case 12:
+      out.push(x0, leftY, x1, rightY);
+      break;
+    case 4:
+    case 11:
+      out.push(topX, y0, x1, rightY);
+      break;
+    case 6:
+    case 9:
+      out.push(topX, y0, bottomX, y1);
+      break;
+    case 7:
+    case 8:
+      out.push(x0, leftY, topX, y0);
+      break;
+    case 5:
+    case 10: {
+      // 鞍点。中心が上なら、上の2角がつながるように下の2角を切り離す
+      const centerAbove = (tl + tr + br + bl) / 4 >= level;
+      if ((code === 5) === centerAbove) {
+        out.push(x0, leftY, topX, y0);
+        out.push(bottomX, y1, x1, rightY);
+      } else {
+        out.push(topX, y0, x1, rightY);
+        out.push(x0, leftY, bottomX, y1);
+      }
+      break;
+    }
+  }
+}
+
+/**
+ * 計曲線の注記の位置を選ぶ。出力の縁からmargin以上内側で、互いにspacing以上離れた線分の中点に、
+ * 線に沿った向き（文字が逆さにならない向き）で置く。向きは線分でなく標高の勾配から求める。
+ */
+export function placeContourLabels(
+  segments: ContourSegments,
+  buffer: Float32Array,
+  bufferWidth: number,
+  halo: number,
+  window: ContourWindow,
+  margin: number,
+  spacing: number,
+  maxLabels: number
+): ContourLabel[] {
+  const labels: ContourLabel[] = [];
+  const scale = window.outputSize / window.span;
+  const spacing2 = spacing * spacing;
+  const lines = segments.indexLines;
+  for (let s = 0; s < segments.indexLevels.length && labels.length < maxLabels; s++) {
+    const x = (lines[s * 4] + lines[s * 4 + 2]) / 2;
+    const y = (lines[s * 4 + 1] + lines[s * 4 + 3]) / 2;
+    if (x < margin || y < margin || x > window.outputSize - margin || y > window.outputSize - margin) continue;
+    if (labels.some((l) => (l.x - x) * (l.x - x) + (l.y - y) * (l.y - y) < spacing2)) continue;
+
+    // 中点の画素の中央差分。線の向きは勾配に直交する
+    const px = Math.floor(x / scale + window.originX) + halo;
+    const py = Math.floor(y / scale + window.originY) + halo;
+    if (px < 1 || py < 1 || px > bufferWidth - 2 || py > bufferWidth - 2) continue;
+    const gx = buffer[py * bufferWidth + px + 1] - buffer[py * bufferWidth + px - 1];
+    const gy = buffer[(py + 1) * bufferWidth + px] - buffer[(py - 1) * bufferWidth + px];
+    if (!Number.isFinite(gx) || !Number.isFinite(gy) || (gx === 0 && gy === 0)) continue;
+    let angle = Math.atan2(gx, -gy);
+    if (angle > Math.PI / 2) angle -= Math.PI;
+    else if (angle <= -Math.PI / 2) angle += Math.PI;
+    labels.push({ x, y, angle, level: segments.indexLevels[s] });
+  }
+  return labels;
+}
@@ -3,6 +3,7 @@
  *
  * maplibre内蔵の hillshade レイヤは光源方位に依存するため、地図を回すと凹凸が反転する。
  * ここでは標高タイルを自前で取得・デコードし、陰影を計算した通常のラスタタイルを返す。
+ * 等高線を指定した地図（hillshade://...#mode=contour）は同じバッファから等高線を描く。
  *
  * 内部のタイルURLの形式:
  *   terrainshade://<encodeURIComponent(JSON設定)>/{z}/{x}/{y}
@@ -15,8 +16,10 @@ import {
   metersPerPixel,
   requiredHalo,
   DEFAULT_SHADING_OPTIONS,
+  DemRenderOptions,
   ShadingOptions,
 } from './terrainShading';
+import { contourInterval, ContourWindow, placeContourLabels, traceContours } from './contourLines';
 
 export const SHADING_PROTOCOL = 'terrainshade';
 
@@ -25,18 +28,42 @@ const TILE_SIZE = 256;
 const MAX_ZOOM_FALLBACK = 4;
 /** デコード済み標高のキャッシュ枚数。1枚あたり 256×256×4B = 256KB */
 const MAX_CACHED_TILES = 128;
+/** 等高線の色（地理院地図の等高線に近い茶色）と線幅・注記。Android版のMapDEMTileProviderと揃える */
+const CONTOUR_COLOR = '#9c6b3c';
+const CONTOUR_WIDTH = 1;
+const INDEX_CONTOUR_WIDTH = 2;
+const LABEL_FONT = '11px sans-serif';
+const LABEL_MARGIN = 24;
+const LABEL_SPACING = 96;
+const MAX_LABELS = 6;
 
 type ShadingTileConfig = {
   /** 標高タイルのURLテンプレート。{z}/{x}/{y} を含む */
   u: string;
   /** Y軸反転（TMS形式） */
   f?: boolean;
+  /** 等高線を描く */
+  c?: boolean;
+  /** 計曲線に注記を付ける */
+  l?: boolean;
+  /** 標高タイルが実在する最大ズーム。等高線はこれより先も線を描き直すので、取得はここで止める */
+  n?: number;
 };
 
 /** タイルURLの先頭部分を作る。maplibre側で {z}/{x}/{y} が置換される */
-export function buildShadingTileUrl(demUrlTemplate: string, flipY?: boolean): string {
+export function buildShadingTileUrl(
+  demUrlTemplate: string,
+  flipY?: boolean,
+  render?: DemRenderOptions,
+  maxNativeZoom?: number
+): string {
   const config: ShadingTileConfig = { u: demUrlTemplate };
   if (flipY) config.f = true;
+  if (render?.contour) {
+    config.c = true;
+    if (render.labels) config.l = true;
+    if (maxNativeZoom !== undefined) config.n = maxNativeZoom;
+  }
   return `${SHADING_PROTOCOL}://${encodeURIComponent(JSON.stringify(config))}/{z}/{x}/{y}`;
 }
 
@@ -185,6 +212,69 @@ function cropAndScale(
   return out;
 }
 
+/**
+ * 等高線を描いてPNGを返す。windowはutils/contourLinesを参照。間隔は表示するズーム z で決める。
+ * オーバーズーム時は粗いタイルの該当部分の線を拡大して描くので、線はぼやけない。
+ */
+async function renderContours(
+  buffer: Float32Array,
+  halo: number,
+  window: ContourWindow,
+  z: number,
+  labels: boolean
+): Promise<Uint8Array | null> {
+  const bufferWidth = TILE_SIZE + 2 * halo;
+  const segments = traceContours(buffer, bufferWidth, halo, window, contourInterval(z));
+  const canvas = new OffscreenCanvas(TILE_SIZE, TILE_SIZE);
+  const ctx = canvas.getContext('2d');
+  if (!ctx) return null;
+
+  ctx.strokeStyle = CONTOUR_COLOR;
+  ctx.lineCap = 'round';
+  const strokeLines = (lines: number[], width: number) => {
+    ctx.lineWidth = width;
+    ctx.beginPath();
+    for (let i = 0; i < lines.length; i += 4) {
+      ctx.moveTo(lines[i], lines[i + 1]);
+      ctx.lineTo(lines[i + 2], lines[i + 3]);
+    }
+    ctx.stroke();
+  };
+  strokeLines(segments.lines, CONTOUR_WIDTH);
+  strokeLines(segments.indexLines, INDEX_CONTOUR_WIDTH);
+
+  if (labels) {
+    // 下の線が透けないよう白い縁を付ける
+    ctx.font = LABEL_FONT;
+    ctx.textAlign = 'center';
+    ctx.textBaseline = 'middle';
+    ctx.lineWidth = 3;
+    ctx.strokeStyle = '#ffffff';
+    ctx.fillStyle = CONTOUR_COLOR;
+    const placed = placeContourLabels(
+      segments,
+      buffer,
+      bufferWidth,
+      halo,
+      window,
+      LABEL_MARGIN,
+      LABEL_SPACING,
+      MAX_LABELS
+    );
+    for (const label of placed) {
+      const text = String(Math.round(label.level));
+      ctx.save();
+      ctx.translate(label.x, label.y);
+      ctx.rotate(label.angle);
+      ctx.strokeText(text, 0, 0);
+      ctx.fillText(text, 0, 0);
+      ctx.restore();
+    }
+  }
+  const blob = await canvas.convertToBlob({ type: 'image/png' });
+  return new Uint8Array(await blob.arrayBuffer());
+}
+
 /**
  * addProtocol に渡すハンドラを作る。
  * @param baseOptions 陰影のパラメータ。方式はタイルURLの指定が優先される
@@ -207,7 +297,8 @@ export function createShadingProtocolHandler(baseOptions: ShadingOptions = DEFAU
       // 標高タイルの提供範囲はズームによって地域差がある（例えば産総研の陸域統合DEMは
       // z14は全国にあるがz15は佐渡島・知床・屋久島などで欠ける）。要求されたズームで
       // 取れなければ粗いズームへ降り、該当部分を切り出して拡大する。
-      for (let sourceZ = z; sourceZ >= Math.max(0, z - MAX_ZOOM_FALLBACK); sourceZ--) {
+      const startZ = config.n !== undefined ? Math.min(z, config.n) : z;
+      for (let sourceZ = startZ; sourceZ >= Math.max(0, startZ - MAX_ZOOM_FALLBACK); sourceZ--) {
         const shift = z - sourceZ;
         const sx = x >> shift;
         const sy = y >> shift;
@@ -229,6 +320,16 @@ export function createShadingProtocolHandler(baseOptions: ShadingOptions = DEFAU
         if (!tiles[4]) continue;
 
         const buffer = assembleWithHalo(tiles, halo);
+        if (config.c) {
+          const span = TILE_SIZE / (1 << shift);
+          const contourWindow = {
+            originX: (x - (sx << shift)) * span,
+            originY: (y - (sy << shift)) * span,
+            span,
+            outputSize: TILE_SIZE,
+          };
+          return { data: await renderContours(buffer, halo, contourWindow, z, !!config.l) };
+        }
         const rgba = computeShading(
           buffer,
           TILE_SIZE + 2 * halo,
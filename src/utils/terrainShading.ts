@@ -83,6 +83,22 @@ export function toDemUrl(url: string): string {
   return hash < 0 ? rest : rest.slice(0, hash);
 }
 
+/** 標高タイルの描き方。contourなら陰影の代わりに等高線（utils/contourLines）、labelsは計曲線の注記 */
+export type DemRenderOptions = { contour: boolean; labels: boolean };
+
+/**
+ * 地図URLのフラグメントから描き方を読む（hillshade://...#mode=contour&labels=1）。
+ * 指定が無ければ陰影。Android版はMapDEMTileProviderが同じ指定を読む。
+ */
+export function demRenderOptions(url: string): DemRenderOptions {
+  const hash = url.indexOf('#');
+  const params = hash < 0 ? [] : url.slice(hash + 1).split('&');
+  return {
+    contour: params.includes('mode=contour'),
+    labels: params.includes('labels=1') || params.includes('labels=true'),
+  };
+}
+
 /**
  * 国土地理院・産総研方式の標高タイルをデコードする。
  * x = 2^16·R + 2^8·G + B、NoDataは2^23、単位は0.01m。